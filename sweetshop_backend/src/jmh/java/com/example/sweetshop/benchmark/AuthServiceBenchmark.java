@@ -0,0 +1,77 @@
+package com.example.sweetshop.benchmark;
+
+import com.example.sweetshop.dto.AuthRequest;
+import com.example.sweetshop.dto.LoginResponse;
+import com.example.sweetshop.dto.RegisterRequest;
+import com.example.sweetshop.entity.Users;
+import com.example.sweetshop.repository.UserRepository;
+import com.example.sweetshop.security.TokenRevocationList;
+import com.example.sweetshop.service.AuthService;
+import com.example.sweetshop.service.CustomUserDetailsService;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Register and login through {@link AuthService} with a stubbed repository, so the numbers are
+ * dominated by BCrypt at the given {@code strength} rather than by the database.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class AuthServiceBenchmark {
+
+    private static final String EMAIL = "alice@example.com";
+    private static final String PASSWORD = "correct horse battery staple";
+
+    @Param({"10", "12"})
+    public int strength;
+
+    private AuthService authService;
+    private RegisterRequest registerRequest;
+    private AuthRequest loginRequest;
+
+    @Setup
+    public void setUp() {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(strength);
+        Users user = new Users();
+        user.setId(1L);
+        user.setUsername("alice");
+        user.setEmail(EMAIL);
+        user.setPassword(encoder.encode(PASSWORD));
+        user.setRole("ROLE_USER");
+
+        UserRepository users = Mockito.mock(UserRepository.class, Mockito.withSettings().stubOnly());
+        when(users.insertIfAbsent(anyString(), anyString(), anyString(), anyString())).thenReturn(1);
+        when(users.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(new CustomUserDetailsService(users));
+        provider.setPasswordEncoder(encoder);
+
+        authService = new AuthService(users, encoder, new ProviderManager(provider),
+                Fixtures.jwtUtils(0), new TokenRevocationList());
+        registerRequest = new RegisterRequest("bob", "bob@example.com", PASSWORD, "ROLE_USER");
+        loginRequest = new AuthRequest(EMAIL, PASSWORD);
+    }
+
+    @Benchmark
+    public void register() {
+        authService.register(registerRequest);
+    }
+
+    @Benchmark
+    public LoginResponse login() {
+        return authService.login(loginRequest);
+    }
+}
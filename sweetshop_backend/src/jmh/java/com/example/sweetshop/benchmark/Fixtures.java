@@ -0,0 +1,46 @@
+package com.example.sweetshop.benchmark;
+
+import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.security.JwtUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/** Deterministic inputs shared by the benchmarks, so runs on different commits are comparable. */
+final class Fixtures {
+
+    static final long SEED = 42L;
+    static final String JWT_SECRET = "benchmark_secret_that_is_long_enough_for_hs256";
+
+    private static final String[] NAMES = {"Ladoo", "Barfi", "Jalebi", "Peda", "Rasgulla", "Halwa", "Kaju Katli"};
+    private static final String[] CATEGORIES = {"Traditional", "Milk", "Dry Fruit", "Festive"};
+
+    private Fixtures() {
+    }
+
+    static List<Sweet> sweets(int count) {
+        Random random = new Random(SEED);
+        List<Sweet> sweets = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            Sweet s = new Sweet();
+            s.setId((long) i);
+            s.setName(NAMES[random.nextInt(NAMES.length)] + " " + i);
+            s.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+            s.setPrice(10 + random.nextInt(49_000) / 100.0);
+            s.setQuantity(random.nextInt(500));
+            sweets.add(s);
+        }
+        return sweets;
+    }
+
+    static JwtUtils jwtUtils(int cacheEntries) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", JWT_SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 3_600_000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheMaxEntries", cacheEntries);
+        ReflectionTestUtils.invokeMethod(jwtUtils, "init");
+        return jwtUtils;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.sweetshop.benchmark;
+
+import com.example.sweetshop.security.JwtAuthFilter;
+import com.example.sweetshop.security.JwtUtils;
+import com.example.sweetshop.security.TokenRevocationList;
+import com.example.sweetshop.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** One authenticated request through {@link JwtAuthFilter}, from header parsing to security context. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class JwtAuthFilterBenchmark {
+
+    @Param({"0", "10000"})
+    public int cacheEntries;
+
+    private JwtAuthFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setUp() {
+        JwtUtils jwtUtils = Fixtures.jwtUtils(cacheEntries);
+        filter = new JwtAuthFilter(jwtUtils, Mockito.mock(CustomUserDetailsService.class), new TokenRevocationList(),
+                new SimpleMeterRegistry());
+        authorization = "Bearer " + jwtUtils.generateToken("alice@example.com",
+                List.of(new SimpleGrantedAuthority("ROLE_USER")));
+    }
+
+    @Benchmark
+    public Authentication authenticatedRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sweets");
+        request.addHeader("Authorization", authorization);
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
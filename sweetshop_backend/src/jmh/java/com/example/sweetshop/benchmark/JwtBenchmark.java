@@ -0,0 +1,43 @@
+package com.example.sweetshop.benchmark;
+
+import com.example.sweetshop.security.JwtUtils;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Token issue and verification; {@code cacheEntries=0} measures the full signature check. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final List<SimpleGrantedAuthority> ROLES = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+
+    @Param({"0", "10000"})
+    public int cacheEntries;
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtils = Fixtures.jwtUtils(cacheEntries);
+        token = jwtUtils.generateToken("alice@example.com", ROLES);
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken("alice@example.com", ROLES);
+    }
+
+    @Benchmark
+    public Claims verify() {
+        return jwtUtils.verify(token);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.sweetshop.benchmark;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.mapper.SweetMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Cost of encoding a catalogue response in each negotiable format, with and without the gzip
+ * that response compression adds. The encoded size of each combination is printed at setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class SweetEncodingBenchmark {
+
+    @Param({"10000"})
+    public int size;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"false", "true"})
+    public boolean gzip;
+
+    private ObjectMapper objectMapper;
+    private List<SweetDto> sweets;
+
+    @Setup
+    public void setUp() throws IOException {
+        objectMapper = switch (format) {
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+            default -> Jackson2ObjectMapperBuilder.json().build();
+        };
+        sweets = Fixtures.sweets(size).stream().map(SweetMapper::toDto).toList();
+        System.out.printf("%n%s%s, %d sweets: %d bytes%n", format, gzip ? "+gzip" : "", size, encode().length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        byte[] body = objectMapper.writeValueAsBytes(sweets);
+        if (!gzip) {
+            return body;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream compressed = new GZIPOutputStream(out)) {
+            compressed.write(body);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.sweetshop.benchmark;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.mapper.SweetMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Jackson serialization of a catalogue response, with the mapper configured the way Spring MVC does. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class SweetJsonBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    private ObjectMapper objectMapper;
+    private List<SweetDto> sweets;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        sweets = Fixtures.sweets(size).stream().map(SweetMapper::toDto).toList();
+    }
+
+    @Benchmark
+    public byte[] writeList() throws Exception {
+        return objectMapper.writeValueAsBytes(sweets);
+    }
+}
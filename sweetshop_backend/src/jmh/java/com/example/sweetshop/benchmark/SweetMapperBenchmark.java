@@ -0,0 +1,34 @@
+package com.example.sweetshop.benchmark;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.mapper.SweetMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Entity to DTO mapping of a whole catalogue, as done by every list endpoint. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+@State(Scope.Benchmark)
+public class SweetMapperBenchmark {
+
+    @Param({"100", "10000", "100000"})
+    public int size;
+
+    private List<Sweet> sweets;
+
+    @Setup
+    public void setUp() {
+        sweets = Fixtures.sweets(size);
+    }
+
+    @Benchmark
+    public List<SweetDto> toDto() {
+        return sweets.stream().map(SweetMapper::toDto).toList();
+    }
+}
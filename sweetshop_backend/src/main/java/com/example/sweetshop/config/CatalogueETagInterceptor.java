@@ -0,0 +1,52 @@
+package com.example.sweetshop.config;
+
+import com.example.sweetshop.service.CatalogueVersion;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * Conditional GET for the catalogue lists. The ETag is the {@link CatalogueVersion} plus the
+ * representation, so a client whose {@code If-None-Match} still matches gets a 304 before the
+ * handler runs: no query and no serialization.
+ */
+@Component
+public class CatalogueETagInterceptor implements HandlerInterceptor {
+
+    private final CatalogueVersion version;
+
+    public CatalogueETagInterceptor(CatalogueVersion version) {
+        this.version = version;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!HttpMethod.GET.matches(request.getMethod()) && !HttpMethod.HEAD.matches(request.getMethod())) {
+            return true;
+        }
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        // read before the handler queries, so a change racing the query only makes the tag older
+        String etag = version.etag(representation(request));
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+
+    private static String representation(HttpServletRequest request) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept == null) {
+            return "json";
+        }
+        if (accept.contains(MediaType.APPLICATION_NDJSON_VALUE)) {
+            return "ndjson";
+        }
+        if (accept.contains(MediaType.APPLICATION_CBOR_VALUE)) {
+            return "cbor";
+        }
+        return accept.contains("application/x-jackson-smile") ? "smile" : "json";
+    }
+}
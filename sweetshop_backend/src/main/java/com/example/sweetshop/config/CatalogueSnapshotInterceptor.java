@@ -0,0 +1,73 @@
+package com.example.sweetshop.config;
+
+import com.example.sweetshop.service.CatalogueSnapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * Answers the unfiltered JSON {@code GET /api/sweets} from the {@link CatalogueSnapshot}: the
+ * pre-encoded bytes, or their gzip variant, are copied to the response and the handler is
+ * skipped. Registered after {@link CatalogueETagInterceptor}, which has already set the ETag or
+ * answered 304. Any other request, or a snapshot behind the catalogue, goes to the controller.
+ */
+@Component
+public class CatalogueSnapshotInterceptor implements HandlerInterceptor {
+
+    private final CatalogueSnapshot snapshot;
+
+    @Value("${server.compression.min-response-size:2KB}")
+    private DataSize minCompressedSize = DataSize.ofKilobytes(2);
+
+    public CatalogueSnapshotInterceptor(CatalogueSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws IOException {
+        if (!HttpMethod.GET.matches(request.getMethod()) || !request.getParameterMap().isEmpty()
+                || !acceptsJson(request.getHeader(HttpHeaders.ACCEPT))) {
+            return true;
+        }
+        CatalogueSnapshot.Snapshot current = snapshot.currentSnapshot();
+        if (current == null) {
+            return true;
+        }
+        byte[] body = current.json();
+        if (body.length >= minCompressedSize.toBytes() && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            body = current.gzip();
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+        return false;
+    }
+
+    // anything naming another format is left to content negotiation
+    private static boolean acceptsJson(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return true;
+        }
+        if (accept.contains("ndjson") || accept.contains("cbor") || accept.contains("smile")) {
+            return false;
+        }
+        return accept.contains(MediaType.APPLICATION_JSON_VALUE) || accept.contains("*/*")
+                || accept.contains("application/*");
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        return acceptEncoding != null && acceptEncoding.toLowerCase(Locale.ROOT).contains("gzip");
+    }
+}
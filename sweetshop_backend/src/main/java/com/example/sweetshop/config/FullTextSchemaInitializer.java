@@ -0,0 +1,38 @@
+package com.example.sweetshop.config;
+
+import com.example.sweetshop.service.SearchBackend;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Applies {@code schema-fulltext.sql} (pg_trgm, the generated {@code search_vector} column and
+ * their GIN indexes) when the fulltext search backend is selected. The other backends never
+ * touch them, so they run with a role that cannot create extensions.
+ */
+@Component
+public class FullTextSchemaInitializer implements SmartInitializingSingleton {
+
+    private final DataSource dataSource;
+
+    @Value("${app.searchBackend:memory}")
+    private SearchBackend backend = SearchBackend.MEMORY;
+
+    public FullTextSchemaInitializer(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    // after every singleton, so Hibernate and schema.sql have already created the sweet table
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (backend == SearchBackend.FULLTEXT) {
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("schema-fulltext.sql")),
+                    dataSource);
+        }
+    }
+}
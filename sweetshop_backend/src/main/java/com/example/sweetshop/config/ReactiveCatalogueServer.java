@@ -0,0 +1,67 @@
+package com.example.sweetshop.config;
+
+import com.example.sweetshop.reactive.ReactiveCatalogueConfiguration;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.Banner;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * Starts the WebFlux catalogue on {@code app.reactiveCataloguePort} when
+ * {@code app.reactiveCatalogue} is on. It runs as a child context, so tokens revoked through the
+ * servlet API are refused there too; writes stay on the servlet side.
+ */
+@Component
+public class ReactiveCatalogueServer implements SmartLifecycle {
+
+    private final ConfigurableApplicationContext parent;
+
+    @Value("${app.reactiveCatalogue:false}")
+    private boolean enabled = false;
+
+    @Value("${app.reactiveCataloguePort:9081}")
+    private int port = 9081;
+
+    private volatile ConfigurableApplicationContext child;
+
+    public ReactiveCatalogueServer(ConfigurableApplicationContext parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        child = new SpringApplicationBuilder(ReactiveCatalogueConfiguration.class)
+                .parent(parent)
+                .web(WebApplicationType.REACTIVE)
+                .bannerMode(Banner.Mode.OFF)
+                .registerShutdownHook(false)
+                // the child reads its own copy of the config files, so hand over what the parent resolved
+                .run("--app.reactiveCataloguePort=" + port);
+    }
+
+    @Override
+    public void stop() {
+        if (child != null) {
+            child.close();
+            child = null;
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return child != null;
+    }
+
+    /** The port the catalogue listens on, or -1 while it is not running. */
+    public int port() {
+        ConfigurableApplicationContext current = child;
+        return current == null ? -1 : ((WebServerApplicationContext) current).getWebServer().getPort();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.sweetshop.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every call on a Spring Data repository as {@code repository.query}, tagged with the
+ * repository and method. Timers are looked up once per repository method, so a call only costs
+ * two clock reads and a record.
+ */
+@Aspect
+@Component
+public class RepositoryMetricsAspect {
+
+    private final MeterRegistry registry;
+    private final Map<Class<?>, Map<Method, Timer>> timers = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("this(org.springframework.data.repository.Repository)")
+    public Object time(ProceedingJoinPoint pjp) throws Throwable {
+        Timer timer = timerFor(pjp.getThis().getClass(), ((MethodSignature) pjp.getSignature()).getMethod());
+        long start = System.nanoTime();
+        try {
+            return pjp.proceed();
+        } finally {
+            timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timerFor(Class<?> proxyClass, Method method) {
+        return timers.computeIfAbsent(proxyClass, k -> new ConcurrentHashMap<>())
+                .computeIfAbsent(method, m -> Timer.builder("repository.query")
+                        .tag("repository", repositoryName(proxyClass))
+                        .tag("method", m.getName())
+                        .register(registry));
+    }
+
+    private static String repositoryName(Class<?> proxyClass) {
+        for (Class<?> type : proxyClass.getInterfaces()) {
+            if (type.getPackageName().startsWith("com.example.sweetshop")) {
+                return type.getSimpleName();
+            }
+        }
+        return proxyClass.getSimpleName();
+    }
+}
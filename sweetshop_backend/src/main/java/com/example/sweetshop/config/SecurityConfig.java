@@ -1,8 +1,13 @@
 package com.example.sweetshop.config;
 
+import com.example.sweetshop.security.BoundedPasswordEncoder;
 import com.example.sweetshop.security.JwtAuthFilter;
 import com.example.sweetshop.security.JwtUtils;
+import com.example.sweetshop.security.TokenRevocationList;
 import com.example.sweetshop.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.*;
 import org.springframework.security.authentication.*;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
@@ -10,7 +15,6 @@ import org.springframework.security.config.annotation.method.configuration.Enabl
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.*;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.web.cors.*;
@@ -23,10 +27,15 @@ public class SecurityConfig {
 
     private final JwtUtils jwtUtils;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationList revocationList;
+    private final MeterRegistry meterRegistry;
 
-    public SecurityConfig(JwtUtils jwtUtils, CustomUserDetailsService userDetailsService) {
+    public SecurityConfig(JwtUtils jwtUtils, CustomUserDetailsService userDetailsService,
+                          TokenRevocationList revocationList, MeterRegistry meterRegistry) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.revocationList = revocationList;
+        this.meterRegistry = meterRegistry;
     }
 
     @Bean
@@ -35,19 +44,27 @@ public class SecurityConfig {
     }
 
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public BoundedPasswordEncoder passwordEncoder(@Value("${app.bcryptStrength:10}") int strength,
+                                                  @Value("${app.passwordHashThreads:0}") int threads,
+                                                  @Value("${app.passwordHashQueueCapacity:64}") int queueCapacity) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), poolSize, queueCapacity);
     }
 
     @Bean
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        JwtAuthFilter jwtAuthFilter = new JwtAuthFilter(jwtUtils, userDetailsService);
+        JwtAuthFilter jwtAuthFilter = new JwtAuthFilter(jwtUtils, userDetailsService, revocationList, meterRegistry);
 
         http
                 .csrf(csrf -> csrf.disable())
                 .cors(cors -> cors.configurationSource(corsConfigurationSource())) // ✅ enable CORS
                 .sessionManagement(sm -> sm.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
+                        // streamed responses finish on an async dispatch; the request was authorized already
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+                        .requestMatchers("/actuator/health").permitAll()
+                        // metrics expose traffic and internals; scrape them with an admin token
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/api/auth/**",
                                          "/swagger-ui/**",
                                          "/v3/api-docs/**",
@@ -64,8 +81,9 @@ public class SecurityConfig {
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:5000")); // your React app
-        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
+        configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "PATCH", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(List.of("*"));
+        configuration.setExposedHeaders(List.of("ETag")); // lets the app read the version for If-Match
         configuration.setAllowCredentials(true); // needed if you send cookies/JWT in headers
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
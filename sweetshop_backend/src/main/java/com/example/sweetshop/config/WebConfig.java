@@ -0,0 +1,42 @@
+package com.example.sweetshop.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final CatalogueETagInterceptor catalogueETagInterceptor;
+    private final CatalogueSnapshotInterceptor catalogueSnapshotInterceptor;
+
+    public WebConfig(CatalogueETagInterceptor catalogueETagInterceptor,
+                     CatalogueSnapshotInterceptor catalogueSnapshotInterceptor) {
+        this.catalogueETagInterceptor = catalogueETagInterceptor;
+        this.catalogueSnapshotInterceptor = catalogueSnapshotInterceptor;
+    }
+
+    // binary twins of the JSON converter, picked by Accept; built from Boot's builder so they share its settings
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(catalogueETagInterceptor).addPathPatterns("/api/sweets", "/api/sweets/search");
+        // after the ETag check, so a 304 still wins over sending the snapshot
+        registry.addInterceptor(catalogueSnapshotInterceptor).addPathPatterns("/api/sweets");
+    }
+}
@@ -2,7 +2,9 @@ package com.example.sweetshop.controller;
 
 import com.example.sweetshop.dto.*;
 import com.example.sweetshop.service.AuthService;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import jakarta.validation.Valid;
@@ -26,4 +28,13 @@ public class AuthController {
         LoginResponse resp = service.login(req);
         return ResponseEntity.ok(resp);
     }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        service.logout(authentication.getName());
+        return ResponseEntity.noContent().build();
+    }
 }
@@ -0,0 +1,44 @@
+package com.example.sweetshop.controller;
+
+import com.example.sweetshop.dto.CategorySales;
+import com.example.sweetshop.dto.MovementPage;
+import com.example.sweetshop.dto.TopSeller;
+import com.example.sweetshop.service.ReportService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/** Sales figures and stock history; dates are UTC days, both ends inclusive. */
+@CrossOrigin(origins = "http://localhost:5000")
+@RestController
+@RequestMapping("/api/reports")
+@PreAuthorize("hasRole('ADMIN')")
+public class ReportController {
+    private final ReportService service;
+    public ReportController(ReportService service) {
+        this.service = service;
+    }
+
+    @GetMapping("/top-sellers")
+    public List<TopSeller> topSellers(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                      @RequestParam(defaultValue = "10") int limit) {
+        return service.topSellers(from, to, limit);
+    }
+
+    @GetMapping("/category-sales")
+    public List<CategorySales> categorySales(@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return service.categorySales(from, to);
+    }
+
+    @GetMapping("/sweets/{id}/movements")
+    public MovementPage movements(@PathVariable Long id,
+                                  @RequestParam(required = false) Long before,
+                                  @RequestParam(defaultValue = "50") int limit) {
+        return service.history(id, before, limit);
+    }
+}
@@ -1,14 +1,30 @@
 package com.example.sweetshop.controller;
 
+import com.example.sweetshop.dto.CheckoutRequest;
+import com.example.sweetshop.dto.CheckoutResponse;
 import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.dto.SweetPage;
 import com.example.sweetshop.entity.Sweet;
 import com.example.sweetshop.mapper.SweetMapper;
+import com.example.sweetshop.service.CatalogueQuery;
+import com.example.sweetshop.service.StockUpdateBroadcaster;
 import com.example.sweetshop.service.SweetService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import jakarta.validation.Valid;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -17,7 +33,13 @@ import java.util.stream.Collectors;
 @RequestMapping("/api/sweets")
 public class SweetController {
     private final SweetService service;
-    public SweetController(SweetService service) { this.service = service; }
+    private final ObjectMapper objectMapper;
+    private final StockUpdateBroadcaster updates;
+    public SweetController(SweetService service, ObjectMapper objectMapper, StockUpdateBroadcaster updates) {
+        this.service = service;
+        this.objectMapper = objectMapper;
+        this.updates = updates;
+    }
 
     @PostMapping
     @PreAuthorize("hasRole('ADMIN')")
@@ -35,28 +57,93 @@ public class SweetController {
                 .collect(Collectors.toList());
     }
 
+    @GetMapping(params = "size")
+    @PreAuthorize("isAuthenticated()")
+    public SweetPage listPage(@RequestParam(required = false) Long after, @RequestParam int size) {
+        return toPage(service.listPage(after, size), size);
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public StreamingResponseBody streamAll() {
+        return out -> {
+            SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out);
+            service.streamAll(s -> {
+                try {
+                    writer.write(SweetMapper.toDto(s));
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            writer.flush();
+        };
+    }
+
+    /**
+     * Server-Sent Events with every committed change to the catalogue, batched per short window
+     * as {@code stock} events. Load the list once, then apply the updates; reload after a reconnect.
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public SseEmitter stream() {
+        return updates.subscribe();
+    }
+
+    /**
+     * Applies every given criterion together. Sorting ({@code sort=price,desc}) and
+     * {@code limit} are pushed down to the database.
+     */
     @GetMapping("/search")
     @PreAuthorize("isAuthenticated()")
     public List<SweetDto> search(@RequestParam(required = false) String name,
                               @RequestParam(required = false) String category,
                               @RequestParam(required = false) Double minPrice,
-                              @RequestParam(required = false) Double maxPrice) {
-        List<Sweet> results;
-        if (name != null) results = service.searchByName(name);
-        else if (category != null) results = service.searchByCategory(category);
-        else if (minPrice != null && maxPrice != null) results = service.searchByPriceRange(minPrice, maxPrice);
-        else results =service.listAll();
-
-        return results.stream()
+                              @RequestParam(required = false) Double maxPrice,
+                              Sort sort,
+                              @RequestParam(required = false) Integer limit) {
+        return service.search(new CatalogueQuery(name, category, minPrice, maxPrice, sort, limit))
+                .stream()
                 .map(SweetMapper::toDto)
                 .collect(Collectors.toList());
     }
 
+    @GetMapping(value = "/search", params = "size")
+    @PreAuthorize("isAuthenticated()")
+    public SweetPage searchPage(@RequestParam(required = false) String name,
+                                @RequestParam(required = false) String category,
+                                @RequestParam(required = false) Double minPrice,
+                                @RequestParam(required = false) Double maxPrice,
+                                @RequestParam(required = false) Long after,
+                                @RequestParam int size) {
+        CatalogueQuery query = new CatalogueQuery(name, category, minPrice, maxPrice, null, null);
+        return toPage(service.searchPage(query, after, size), size);
+    }
+
+    /** The ETag is the sweet's version; send it back as If-Match to make an edit conditional. */
+    @GetMapping("/{id}")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<SweetDto> get(@PathVariable Long id, WebRequest request) {
+        Sweet s = service.getSweet(id);
+        if (request.checkNotModified(etag(s))) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag(s)).body(SweetMapper.toDto(s));
+    }
+
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<SweetDto> update(@PathVariable Long id, @Valid @RequestBody SweetDto dto) {
-        Sweet updated = service.updateSweet(id, dto);
-        return ResponseEntity.ok(SweetMapper.toDto(updated));
+    public ResponseEntity<SweetDto> update(@PathVariable Long id, @Valid @RequestBody SweetDto dto,
+                                           @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Sweet updated = service.updateSweet(id, dto, versionOf(ifMatch));
+        return ResponseEntity.ok().eTag(etag(updated)).body(SweetMapper.toDto(updated));
+    }
+
+    @PatchMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<SweetDto> patch(@PathVariable Long id, @RequestBody SweetDto dto,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        Sweet patched = service.patchSweet(id, dto, versionOf(ifMatch));
+        return ResponseEntity.ok().eTag(etag(patched)).body(SweetMapper.toDto(patched));
     }
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
@@ -72,10 +159,52 @@ public class SweetController {
         return ResponseEntity.ok(SweetMapper.toDto(purchased));
     }
 
+    @PostMapping("/checkout")
+    @PreAuthorize("isAuthenticated()")
+    public ResponseEntity<CheckoutResponse> checkout(@Valid @RequestBody CheckoutRequest req) {
+        CheckoutResponse resp = service.checkout(req.getItems());
+        return resp.isCompleted()
+                ? ResponseEntity.ok(resp)
+                : ResponseEntity.status(HttpStatus.CONFLICT).body(resp);
+    }
+
     @PostMapping("/{id}/restock")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<SweetDto> restock(@PathVariable Long id, @RequestParam int qty) {
         Sweet restocked = service.restock(id, qty);
         return ResponseEntity.ok(SweetMapper.toDto(restocked));
     }
+
+    private static String etag(Sweet s) {
+        return "\"" + s.getVersion() + "\"";
+    }
+
+    /*
+     * null for a missing or "*" header. If-Match uses strong comparison (RFC 9110), so a weak
+     * W/ validator never matches; like anything unparsable it maps to -1 and fails with 412.
+     */
+    private static Long versionOf(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        if (tag.startsWith("W/")) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(tag.replace("\"", ""));
+        } catch (NumberFormatException ex) {
+            return -1L;
+        }
+    }
+
+    private SweetPage toPage(List<Sweet> rows, int size) {
+        int pageSize = service.pageSize(size);
+        List<SweetDto> items = rows.stream()
+                .limit(pageSize)
+                .map(SweetMapper::toDto)
+                .collect(Collectors.toList());
+        Long next = rows.size() > pageSize ? items.get(items.size() - 1).getId() : null;
+        return new SweetPage(items, next);
+    }
 }
@@ -0,0 +1,19 @@
+package com.example.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorySales {
+    private LocalDate day;
+    private String category;
+    private Long units;
+    private Double revenue;
+}
@@ -0,0 +1,20 @@
+package com.example.sweetshop.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CheckoutItem {
+    @NotNull
+    private Long sweetId;
+    @NotNull
+    @Positive
+    private Integer quantity;
+}
@@ -0,0 +1,26 @@
+package com.example.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CheckoutLineResult {
+
+    public enum Status {
+        PURCHASED,
+        INSUFFICIENT_STOCK,
+        NOT_FOUND,
+        /** The line could have been served but another line failed, so nothing was taken. */
+        ROLLED_BACK
+    }
+
+    private Long sweetId;
+    private Integer quantity;
+    private Status status;
+    private Integer remaining;
+}
@@ -0,0 +1,17 @@
+package com.example.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class CheckoutResponse {
+    private boolean completed;
+    private List<CheckoutLineResult> lines;
+}
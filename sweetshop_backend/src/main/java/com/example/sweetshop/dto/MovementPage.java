@@ -0,0 +1,19 @@
+package com.example.sweetshop.dto;
+
+import com.example.sweetshop.entity.StockMovement;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovementPage {
+    private List<StockMovement> items;
+    /** Movement id to pass as {@code before} for the next, older page; {@code null} on the last page. */
+    private Long nextCursor;
+}
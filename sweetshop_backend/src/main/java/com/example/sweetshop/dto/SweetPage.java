@@ -0,0 +1,18 @@
+package com.example.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweetPage {
+    private List<SweetDto> items;
+    /** Id to pass as {@code after} for the next page; {@code null} on the last page. */
+    private Long nextCursor;
+}
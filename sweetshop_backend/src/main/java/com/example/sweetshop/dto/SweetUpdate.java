@@ -0,0 +1,28 @@
+package com.example.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweetUpdate {
+    private Long id;
+    private boolean deleted;
+    private String name;
+    private String category;
+    private Double price;
+    private Integer quantity;
+
+    public static SweetUpdate of(SweetDto sweet) {
+        return new SweetUpdate(sweet.getId(), false, sweet.getName(), sweet.getCategory(), sweet.getPrice(),
+                sweet.getQuantity());
+    }
+
+    public static SweetUpdate deleted(Long id) {
+        return new SweetUpdate(id, true, null, null, null, null);
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.sweetshop.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class TopSeller {
+    private Long sweetId;
+    private String name;
+    private Long units;
+    private Double revenue;
+}
@@ -0,0 +1,30 @@
+package com.example.sweetshop.entity;
+
+import java.time.Instant;
+
+/**
+ * One change to the stock of a sweet, as kept in the time-partitioned {@code stock_movement}
+ * table. {@code unitPrice} is taken from the sweet when the movement is written.
+ */
+public record StockMovement(Long sweetId, Kind kind, int delta, Double unitPrice, Instant occurredAt) {
+
+    // the ordinal is stored in the purchase journal, so only ever append new kinds
+    public enum Kind {
+        PURCHASE,
+        RESTOCK,
+        /** Stock set by an admin when creating or editing a sweet. */
+        ADJUSTMENT
+    }
+
+    public static StockMovement purchase(Long sweetId, int qty) {
+        return new StockMovement(sweetId, Kind.PURCHASE, -qty, null, Instant.now());
+    }
+
+    public static StockMovement restock(Long sweetId, int qty) {
+        return new StockMovement(sweetId, Kind.RESTOCK, qty, null, Instant.now());
+    }
+
+    public static StockMovement adjustment(Long sweetId, int delta) {
+        return new StockMovement(sweetId, Kind.ADJUSTMENT, delta, null, Instant.now());
+    }
+}
@@ -3,8 +3,11 @@ package com.example.sweetshop.entity;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
+@DynamicUpdate
 @Getter
 @Setter
 public class Sweet {
@@ -18,4 +21,9 @@ public class Sweet {
     private String category;
     private Double price;
     private Integer quantity;
+
+    /** Bumped by every edit and every stock change, including the native stock updates. */
+    @Version
+    @ColumnDefault("0")
+    private Long version;
 }
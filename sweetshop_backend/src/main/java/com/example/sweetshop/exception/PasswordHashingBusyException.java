@@ -0,0 +1,7 @@
+package com.example.sweetshop.exception;
+
+public class PasswordHashingBusyException extends RuntimeException {
+    public PasswordHashingBusyException() {
+        super("Too many sign-in requests in progress, please retry shortly");
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.sweetshop.exception;
+
+public class RevocationListFullException extends RuntimeException {
+    public RevocationListFullException() {
+        super("Too many sign-outs in progress, please retry later");
+    }
+}
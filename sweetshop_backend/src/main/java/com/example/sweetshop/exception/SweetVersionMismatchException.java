@@ -0,0 +1,8 @@
+package com.example.sweetshop.exception;
+
+public class SweetVersionMismatchException extends RuntimeException{
+
+    public SweetVersionMismatchException(Long id, Long expected){
+        super("Sweet with ID " + id + " is no longer at version " + expected + "; reload it and try again.");
+    }
+}
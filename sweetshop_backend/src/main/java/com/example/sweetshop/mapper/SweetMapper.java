@@ -25,4 +25,11 @@ public class SweetMapper {
         s.setPrice(dto.getPrice());
         s.setQuantity(dto.getQuantity());
     }
+
+    /** Copies the fields the dto carries; {@code quantity} is never taken from a patch. */
+    public static void patchEntityFromDto(Sweet s, SweetDto dto){
+        if (dto.getName() != null) s.setName(dto.getName());
+        if (dto.getCategory() != null) s.setCategory(dto.getCategory());
+        if (dto.getPrice() != null) s.setPrice(dto.getPrice());
+    }
 }
@@ -0,0 +1,117 @@
+package com.example.sweetshop.reactive;
+
+import com.example.sweetshop.security.JwtUtils;
+import com.example.sweetshop.security.TokenRevocationList;
+import com.example.sweetshop.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.observation.web.reactive.WebFluxObservationAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.codec.CodecsAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.HttpHandlerAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.ReactiveWebServerFactoryAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.error.ErrorWebFluxAutoConfiguration;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+
+import java.util.List;
+
+/**
+ * The WebFlux catalogue, run by {@link com.example.sweetshop.config.ReactiveCatalogueServer} as a
+ * child of the main context so it shares the JWT key, revocation list and meters with the servlet
+ * side. Only the read endpoints live here; everything else is denied.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableWebFluxSecurity
+@ImportAutoConfiguration({PropertyPlaceholderAutoConfiguration.class, ReactiveWebServerFactoryAutoConfiguration.class,
+        WebFluxAutoConfiguration.class, HttpHandlerAutoConfiguration.class, CodecsAutoConfiguration.class,
+        ErrorWebFluxAutoConfiguration.class, R2dbcAutoConfiguration.class, WebFluxObservationAutoConfiguration.class})
+@Import(ReactiveSweetController.class)
+public class ReactiveCatalogueConfiguration {
+
+    // Tomcat is on the classpath for the servlet side and would otherwise be picked first
+    @Bean
+    public NettyReactiveWebServerFactory reactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public CataloguePortCustomizer reactiveCataloguePort(@Value("${app.reactiveCataloguePort:9081}") int port) {
+        return new CataloguePortCustomizer(port);
+    }
+
+    @Bean
+    public ReactiveSweetRepository reactiveSweetRepository(ConnectionFactory connectionFactory) {
+        return new ReactiveSweetRepository(DatabaseClient.create(connectionFactory));
+    }
+
+    @Bean
+    public SecurityWebFilterChain reactiveFilterChain(ServerHttpSecurity http, JwtUtils jwtUtils,
+                                                      CustomUserDetailsService userDetailsService,
+                                                      TokenRevocationList revocationList, MeterRegistry registry) {
+        ReactiveJwtAuthFilter jwtAuthFilter =
+                new ReactiveJwtAuthFilter(jwtUtils, userDetailsService, revocationList, registry);
+        return http
+                .csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .cors(cors -> cors.configurationSource(corsConfigurationSource()))
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .authorizeExchange(auth -> auth
+                        .pathMatchers(HttpMethod.GET, "/api/sweets", "/api/sweets/search").authenticated()
+                        .anyExchange().denyAll())
+                .addFilterAt(jwtAuthFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+
+    private static UrlBasedCorsConfigurationSource corsConfigurationSource() {
+        CorsConfiguration configuration = new CorsConfiguration();
+        configuration.setAllowedOrigins(List.of("http://localhost:5000"));
+        configuration.setAllowedMethods(List.of("GET", "OPTIONS"));
+        configuration.setAllowedHeaders(List.of("*"));
+        configuration.setAllowCredentials(true);
+
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", configuration);
+        return source;
+    }
+
+    /** Runs after the {@code server.*} customizer, which would otherwise hand us the servlet port. */
+    static final class CataloguePortCustomizer
+            implements WebServerFactoryCustomizer<NettyReactiveWebServerFactory>, Ordered {
+        private final int port;
+
+        CataloguePortCustomizer(int port) {
+            this.port = port;
+        }
+
+        @Override
+        public void customize(NettyReactiveWebServerFactory factory) {
+            factory.setPort(port);
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.sweetshop.reactive;
+
+import com.example.sweetshop.security.JwtUtils;
+import com.example.sweetshop.security.TokenRevocationList;
+import com.example.sweetshop.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * WebFlux twin of {@code JwtAuthFilter}: the same verification, revocation check and meters,
+ * with the authentication carried in the Reactor context instead of a thread-local. Requests
+ * without a usable token continue unauthenticated and are turned away by the authorization rules.
+ */
+public class ReactiveJwtAuthFilter implements WebFilter {
+
+    private final JwtUtils jwtUtils;
+    private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationList revocationList;
+    private final Timer validTokens;
+    private final Timer invalidTokens;
+
+    public ReactiveJwtAuthFilter(JwtUtils jwtUtils, CustomUserDetailsService userDetailsService,
+                                 TokenRevocationList revocationList, MeterRegistry registry) {
+        this.jwtUtils = jwtUtils;
+        this.userDetailsService = userDetailsService;
+        this.revocationList = revocationList;
+        this.validTokens = Timer.builder("jwt.verify").tag("result", "valid").register(registry);
+        this.invalidTokens = Timer.builder("jwt.verify").tag("result", "invalid").register(registry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        // deferred so a failing verify or revocation lookup is swallowed below, as JwtAuthFilter does
+        return Mono.defer(() -> authenticate(exchange))
+                .map(Optional::of)
+                .onErrorResume(ex -> Mono.empty())
+                .defaultIfEmpty(Optional.empty())
+                .flatMap(auth -> auth.isPresent()
+                        ? chain.filter(exchange).contextWrite(ReactiveSecurityContextHolder.withAuthentication(auth.get()))
+                        : chain.filter(exchange));
+    }
+
+    private Mono<Authentication> authenticate(ServerWebExchange exchange) {
+        String header = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (!StringUtils.hasText(header) || !header.startsWith("Bearer ")) {
+            return Mono.empty();
+        }
+        Claims claims = verify(header.substring(7));
+        if (claims == null || revocationList.isRevoked(claims.getSubject(), claims.getIssuedAt())) {
+            return Mono.empty();
+        }
+        return resolveUser(claims.getSubject(), jwtUtils.getAuthorities(claims))
+                .map(user -> new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+    }
+
+    private Claims verify(String jwt) {
+        long start = System.nanoTime();
+        Claims claims = jwtUtils.verify(jwt);
+        (claims == null ? invalidTokens : validTokens).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return claims;
+    }
+
+    private Mono<UserDetails> resolveUser(String username, List<GrantedAuthority> authorities) {
+        if (authorities == null) {
+            // token predates the roles claim; the lookup is JPA, so keep it off the event loop
+            return Mono.fromCallable(() -> userDetailsService.loadUserByUsername(username))
+                    .subscribeOn(Schedulers.boundedElastic());
+        }
+        return Mono.just(new User(username, "", authorities));
+    }
+}
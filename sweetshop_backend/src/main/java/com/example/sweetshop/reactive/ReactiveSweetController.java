@@ -0,0 +1,70 @@
+package com.example.sweetshop.reactive;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.service.CatalogueQuery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The read-only catalogue endpoints of {@code SweetController} on WebFlux. Results are streamed
+ * as a JSON array, or as NDJSON when asked for, while R2DBC is still reading rows.
+ */
+@RestController
+@RequestMapping("/api/sweets")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSweetController {
+    private final ReactiveSweetRepository repo;
+
+    @Value("${app.maxPageSize:200}")
+    private int maxPageSize = 200;
+
+    public ReactiveSweetController(ReactiveSweetRepository repo) {
+        this.repo = repo;
+    }
+
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<SweetDto> listAll() {
+        return repo.findAll();
+    }
+
+    /** Same parameters as the servlet search, including {@code sort=price,desc} and {@code limit}. */
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<SweetDto> search(@RequestParam(required = false) String name,
+                                 @RequestParam(required = false) String category,
+                                 @RequestParam(required = false) Double minPrice,
+                                 @RequestParam(required = false) Double maxPrice,
+                                 @RequestParam(required = false) List<String> sort,
+                                 @RequestParam(required = false) Integer limit) {
+        if (limit != null && limit <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+        Integer capped = limit == null ? null : Math.min(limit, maxPageSize);
+        return repo.search(new CatalogueQuery(name, category, minPrice, maxPrice, toSort(sort), capped));
+    }
+
+    // "price,desc" style, as Spring Data's resolver reads it on the servlet side
+    private static Sort toSort(List<String> params) {
+        if (params == null) {
+            return Sort.unsorted();
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        for (String param : params) {
+            String[] parts = param.split(",");
+            Sort.Direction direction = parts.length > 1
+                    ? Sort.Direction.fromOptionalString(parts[parts.length - 1]).orElse(Sort.Direction.ASC)
+                    : Sort.Direction.ASC;
+            orders.add(new Sort.Order(direction, parts[0].trim()));
+        }
+        return Sort.by(orders);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.sweetshop.reactive;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.repository.SweetSpecifications;
+import com.example.sweetshop.service.CatalogueQuery;
+import io.r2dbc.spi.Readable;
+import org.springframework.data.domain.Sort;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Flux;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * R2DBC counterpart of the read queries on {@code SweetRepository}: the same predicates as
+ * {@link SweetSpecifications}, ordered and limited by the database, with rows streamed to the
+ * caller as they arrive.
+ */
+public class ReactiveSweetRepository {
+
+    private static final String COLUMNS = "SELECT id, name, category, price, quantity FROM sweet";
+    private static final Set<String> SORTABLE = Set.of("id", "name", "category", "price", "quantity");
+
+    private final DatabaseClient client;
+
+    public ReactiveSweetRepository(DatabaseClient client) {
+        this.client = client;
+    }
+
+    public Flux<SweetDto> findAll() {
+        return client.sql(COLUMNS + " ORDER BY id").map(ReactiveSweetRepository::toDto).all();
+    }
+
+    public Flux<SweetDto> search(CatalogueQuery query) {
+        StringBuilder sql = new StringBuilder(COLUMNS).append(" WHERE true");
+        Map<String, Object> binds = new LinkedHashMap<>();
+        if (query.name() != null) {
+            sql.append(" AND lower(name) LIKE :name ESCAPE '\\'");
+            binds.put("name", "%" + SweetSpecifications.escapeLike(query.name()) + "%");
+        }
+        if (query.category() != null) {
+            sql.append(" AND lower(category) = :category");
+            binds.put("category", query.category());
+        }
+        if (query.minPrice() != null) {
+            sql.append(" AND price >= :minPrice");
+            binds.put("minPrice", query.minPrice());
+        }
+        if (query.maxPrice() != null) {
+            sql.append(" AND price <= :maxPrice");
+            binds.put("maxPrice", query.maxPrice());
+        }
+        sql.append(orderBy(query.sort()));
+        if (query.limit() != null) {
+            sql.append(" LIMIT :limit");
+            binds.put("limit", query.limit());
+        }
+        DatabaseClient.GenericExecuteSpec spec = client.sql(sql.toString());
+        for (Map.Entry<String, Object> bind : binds.entrySet()) {
+            spec = spec.bind(bind.getKey(), bind.getValue());
+        }
+        return spec.map(ReactiveSweetRepository::toDto).all();
+    }
+
+    // property names come from a whitelist, so they are safe to splice into the statement
+    private static String orderBy(Sort sort) {
+        StringBuilder order = new StringBuilder(" ORDER BY ");
+        for (Sort.Order o : sort) {
+            if (!SORTABLE.contains(o.getProperty())) {
+                throw new IllegalArgumentException("Cannot sort by " + o.getProperty());
+            }
+            order.append(o.getProperty()).append(o.isAscending() ? " ASC, " : " DESC, ");
+        }
+        return sort.getOrderFor("id") == null ? order.append("id").toString() : order.substring(0, order.length() - 2);
+    }
+
+    private static SweetDto toDto(Readable row) {
+        return new SweetDto(row.get("id", Long.class), row.get("name", String.class), row.get("category", String.class),
+                row.get("price", Double.class), row.get("quantity", Integer.class));
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.sweetshop.repository;
+
+import com.example.sweetshop.dto.CategorySales;
+import com.example.sweetshop.dto.MovementPage;
+import com.example.sweetshop.dto.TopSeller;
+import com.example.sweetshop.entity.StockMovement;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Stock history and the daily sales rollup it feeds. Both are plain JDBC: {@code stock_movement}
+ * is partitioned by month, which JPA entities do not model well, and the rollup is maintained
+ * with upserts rather than entity updates.
+ */
+@Repository
+public class StockMovementRepository {
+
+    private static final RowMapper<Row> ROW = (rs, i) -> new Row(rs.getLong("id"),
+            new StockMovement(rs.getLong("sweet_id"), StockMovement.Kind.valueOf(rs.getString("kind")),
+                    rs.getInt("delta"), rs.getObject("unit_price", Double.class),
+                    rs.getTimestamp("occurred_at").toInstant()));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StockMovementRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Appends {@code movements} and adds their purchases to {@code sales_daily}, inside the
+     * caller's transaction so history and rollup commit or roll back with the stock change.
+     */
+    @Transactional
+    public void record(List<StockMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = new ArrayList<>(movements.size());
+        // summed per day and sweet, in key order so concurrent writers lock rollup rows alike
+        SortedMap<LocalDate, SortedMap<Long, Integer>> sold = new TreeMap<>();
+        for (StockMovement m : movements) {
+            rows.add(new Object[]{Timestamp.from(m.occurredAt()), m.sweetId(), m.kind().name(), m.delta(), m.sweetId()});
+            if (m.kind() == StockMovement.Kind.PURCHASE) {
+                sold.computeIfAbsent(LocalDate.ofInstant(m.occurredAt(), ZoneOffset.UTC), d -> new TreeMap<>())
+                        .merge(m.sweetId(), -m.delta(), Integer::sum);
+            }
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO stock_movement (occurred_at, sweet_id, kind, delta, unit_price) "
+                        + "VALUES (?, ?, ?, ?, (SELECT price FROM sweet WHERE id = ?))", rows);
+
+        List<Object[]> rollup = new ArrayList<>();
+        sold.forEach((day, units) -> units.forEach((id, qty) -> rollup.add(new Object[]{day, id, id, qty, qty, id})));
+        if (!rollup.isEmpty()) {
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO sales_daily AS d (day, sweet_id, category, units, revenue) "
+                            + "VALUES (?, ?, (SELECT category FROM sweet WHERE id = ?), ?, "
+                            + "? * coalesce((SELECT price FROM sweet WHERE id = ?), 0)) "
+                            + "ON CONFLICT (day, sweet_id) DO UPDATE SET units = d.units + EXCLUDED.units, "
+                            + "revenue = d.revenue + EXCLUDED.revenue, category = coalesce(EXCLUDED.category, d.category)",
+                    rollup);
+        }
+    }
+
+    /**
+     * Newest movements of one sweet first, older than movement {@code beforeId} when given. Pages
+     * on {@code (occurred_at, id)}, since a checkout or flush writes many movements with the same
+     * timestamp.
+     */
+    public MovementPage history(Long sweetId, Long beforeId, int limit) {
+        String select = "SELECT id, sweet_id, kind, delta, unit_price, occurred_at FROM stock_movement WHERE sweet_id = ? ";
+        String page = "ORDER BY occurred_at DESC, id DESC LIMIT ?";
+        List<Row> rows = beforeId == null
+                ? jdbcTemplate.query(select + page, ROW, sweetId, limit + 1)
+                : jdbcTemplate.query(select + "AND (occurred_at, id) < "
+                        + "(SELECT occurred_at, id FROM stock_movement WHERE sweet_id = ? AND id = ?) " + page,
+                        ROW, sweetId, sweetId, beforeId, limit + 1);
+        List<StockMovement> items = rows.stream().limit(limit).map(Row::movement).toList();
+        return new MovementPage(items, rows.size() > limit ? rows.get(limit - 1).id() : null);
+    }
+
+    public List<TopSeller> topSellers(LocalDate from, LocalDate to, int limit) {
+        return jdbcTemplate.query(
+                "SELECT d.sweet_id, s.name, sum(d.units) AS units, sum(d.revenue) AS revenue "
+                        + "FROM sales_daily d LEFT JOIN sweet s ON s.id = d.sweet_id "
+                        + "WHERE d.day BETWEEN ? AND ? GROUP BY d.sweet_id, s.name "
+                        + "ORDER BY units DESC, d.sweet_id LIMIT ?",
+                (rs, i) -> new TopSeller(rs.getLong("sweet_id"), rs.getString("name"), rs.getLong("units"),
+                        rs.getDouble("revenue")),
+                from, to, limit);
+    }
+
+    public List<CategorySales> categorySales(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query(
+                "SELECT day, category, sum(units) AS units, sum(revenue) AS revenue FROM sales_daily "
+                        + "WHERE day BETWEEN ? AND ? GROUP BY day, category ORDER BY day, category",
+                (rs, i) -> new CategorySales(rs.getObject("day", LocalDate.class), rs.getString("category"),
+                        rs.getLong("units"), rs.getDouble("revenue")),
+                from, to);
+    }
+
+    /** Creates the {@code stock_movement} partition for {@code month} unless it exists. */
+    public void createPartition(YearMonth month) {
+        YearMonth next = month.plusMonths(1);
+        jdbcTemplate.execute(String.format(
+                "CREATE TABLE IF NOT EXISTS stock_movement_%d_%02d PARTITION OF stock_movement "
+                        + "FOR VALUES FROM ('%s-01 00:00:00+00') TO ('%s-01 00:00:00+00')",
+                month.getYear(), month.getMonthValue(), month, next));
+    }
+
+    /** Names of the partitions currently attached to {@code stock_movement}. */
+    public List<String> partitions() {
+        return jdbcTemplate.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid "
+                        + "WHERE i.inhparent = 'stock_movement'::regclass ORDER BY c.relname", String.class);
+    }
+
+    private record Row(long id, StockMovement movement) {}
+}
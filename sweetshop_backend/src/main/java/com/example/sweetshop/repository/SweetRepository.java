@@ -2,10 +2,41 @@ package com.example.sweetshop.repository;
 
 import com.example.sweetshop.entity.Sweet;
 import org.springframework.data.jpa.repository.JpaRepository;
-import java.util.List;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface SweetRepository extends JpaRepository<Sweet, Long> {
-    List<Sweet> findByNameContainingIgnoreCase(String name);
-    List<Sweet> findByCategoryIgnoreCase(String category);
-    List<Sweet> findByPriceBetween(Double min, Double max);
+import java.util.Optional;
+
+public interface SweetRepository extends JpaRepository<Sweet, Long>, JpaSpecificationExecutor<Sweet>,
+        SweetRepositoryCustom {
+    /**
+     * Takes {@code qty} units in a single guarded statement and returns the updated row, or
+     * nothing when the sweet does not exist or has fewer than {@code qty} units left.
+     */
+    @Transactional
+    @Query(value = "UPDATE sweet SET quantity = quantity - :qty, version = version + 1 "
+            + "WHERE id = :id AND quantity >= :qty RETURNING *",
+            nativeQuery = true)
+    Optional<Sweet> decrementStock(@Param("id") Long id, @Param("qty") int qty);
+
+    /**
+     * Overwrites whichever of name, category and price are not {@code null} in one statement,
+     * without reading the row first, and returns the updated row. Stock is never touched, so the
+     * change cannot undo a concurrent purchase and needs no version check of its own.
+     */
+    @Transactional
+    @Query(value = "UPDATE sweet SET name = coalesce(CAST(:name AS varchar), name), "
+            + "category = coalesce(CAST(:category AS varchar), category), "
+            + "price = coalesce(CAST(:price AS double precision), price), version = version + 1 "
+            + "WHERE id = :id RETURNING *",
+            nativeQuery = true)
+    Optional<Sweet> patchDetails(@Param("id") Long id, @Param("name") String name,
+                                 @Param("category") String category, @Param("price") Double price);
+
+    @Transactional
+    @Query(value = "UPDATE sweet SET quantity = quantity + :qty, version = version + 1 WHERE id = :id RETURNING *",
+            nativeQuery = true)
+    Optional<Sweet> incrementStock(@Param("id") Long id, @Param("qty") int qty);
 }
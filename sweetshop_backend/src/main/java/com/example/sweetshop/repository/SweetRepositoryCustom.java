@@ -0,0 +1,42 @@
+package com.example.sweetshop.repository;
+
+import com.example.sweetshop.entity.Sweet;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+
+public interface SweetRepositoryCustom {
+
+    /** Current quantity of every sweet, keyed by id. */
+    Map<Long, Integer> findAllQuantities();
+
+    /** Applies relative quantity changes in a single JDBC batch. */
+    int[] adjustQuantities(Map<Long, Integer> deltas);
+
+    /**
+     * Runs one guarded decrement per entry in a single JDBC batch, in ascending id order so
+     * concurrent carts always lock rows in the same sequence. Each count is 1 when the line
+     * was taken and 0 when the sweet is missing or short.
+     */
+    int[] decrementStockBatch(SortedMap<Long, Integer> quantities);
+
+    /**
+     * Streams every sweet in id order through a server-side cursor, {@code fetchSize} rows at
+     * a time. Must run inside a transaction for the driver to use a cursor.
+     */
+    void forEachSweet(int fetchSize, Consumer<Sweet> action);
+
+    /**
+     * Full-text and trigram name search, best match first. Matches the generated
+     * {@code search_vector}, fuzzy names ({@code pg_trgm} similarity) and plain substrings;
+     * category and price bounds are applied when not {@code null}.
+     */
+    List<Sweet> searchRanked(String text, String category, Double minPrice, Double maxPrice, int limit);
+
+    /** Last purchase-journal sequence number whose delta is reflected in {@code sweet.quantity}. */
+    long findJournalCheckpoint();
+
+    void saveJournalCheckpoint(long seq);
+}
@@ -0,0 +1,105 @@
+package com.example.sweetshop.repository;
+
+import com.example.sweetshop.entity.Sweet;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.function.Consumer;
+
+public class SweetRepositoryCustomImpl implements SweetRepositoryCustom {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SweetRepositoryCustomImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public Map<Long, Integer> findAllQuantities() {
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query("SELECT id, quantity FROM sweet",
+                (RowCallbackHandler) rs -> quantities.put(rs.getLong("id"), rs.getInt("quantity")));
+        return quantities;
+    }
+
+    @Override
+    public int[] adjustQuantities(Map<Long, Integer> deltas) {
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((id, delta) -> args.add(new Object[]{delta, id}));
+        return jdbcTemplate.batchUpdate("UPDATE sweet SET quantity = quantity + ?, version = version + 1 WHERE id = ?", args);
+    }
+
+    @Override
+    public int[] decrementStockBatch(SortedMap<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, qty) -> args.add(new Object[]{qty, id, qty}));
+        return jdbcTemplate.batchUpdate("UPDATE sweet SET quantity = quantity - ?, version = version + 1 WHERE id = ? AND quantity >= ?", args);
+    }
+
+    @Override
+    public void forEachSweet(int fetchSize, Consumer<Sweet> action) {
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "SELECT id, name, category, price, quantity, version FROM sweet ORDER BY id",
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(toSweet(rs)));
+    }
+
+    @Override
+    public List<Sweet> searchRanked(String text, String category, Double minPrice, Double maxPrice, int limit) {
+        StringBuilder sql = new StringBuilder(
+                "SELECT id, name, category, price, quantity, version, "
+                        + "ts_rank(search_vector, q) + similarity(lower(name), ?) AS rank "
+                        + "FROM sweet, plainto_tsquery('simple', ?) q "
+                        + "WHERE (search_vector @@ q OR lower(name) % ? OR lower(name) LIKE ? ESCAPE '\\')");
+        List<Object> args = new ArrayList<>(List.of(text, text, text, "%" + SweetSpecifications.escapeLike(text) + "%"));
+        if (category != null) {
+            sql.append(" AND lower(category) = ?");
+            args.add(category.toLowerCase(Locale.ROOT));
+        }
+        if (minPrice != null) {
+            sql.append(" AND price >= ?");
+            args.add(minPrice);
+        }
+        if (maxPrice != null) {
+            sql.append(" AND price <= ?");
+            args.add(maxPrice);
+        }
+        sql.append(" ORDER BY rank DESC, id LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> toSweet(rs), args.toArray());
+    }
+
+    @Override
+    public long findJournalCheckpoint() {
+        Long seq = jdbcTemplate.queryForObject("SELECT seq FROM stock_journal_checkpoint WHERE id = 1", Long.class);
+        return seq == null ? 0L : seq;
+    }
+
+    @Override
+    public void saveJournalCheckpoint(long seq) {
+        jdbcTemplate.update("UPDATE stock_journal_checkpoint SET seq = ? WHERE id = 1", seq);
+    }
+
+    private static Sweet toSweet(ResultSet rs) throws SQLException {
+        Sweet s = new Sweet();
+        s.setId(rs.getLong("id"));
+        s.setName(rs.getString("name"));
+        s.setCategory(rs.getString("category"));
+        s.setPrice(rs.getObject("price", Double.class));
+        s.setQuantity(rs.getObject("quantity", Integer.class));
+        s.setVersion(rs.getObject("version", Long.class));
+        return s;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.sweetshop.repository;
+
+import com.example.sweetshop.entity.Sweet;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.Locale;
+
+/** Composable predicates over {@link Sweet}; each returns {@code null} when its argument is absent. */
+public final class SweetSpecifications {
+
+    private SweetSpecifications() {
+    }
+
+    public static Specification<Sweet> nameContains(String name) {
+        if (name == null) {
+            return null;
+        }
+        String pattern = "%" + escapeLike(name.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.get("name")), pattern, '\\');
+    }
+
+    public static Specification<Sweet> categoryIs(String category) {
+        if (category == null) {
+            return null;
+        }
+        String value = category.toLowerCase(Locale.ROOT);
+        return (root, query, cb) -> cb.equal(cb.lower(root.get("category")), value);
+    }
+
+    public static Specification<Sweet> priceAtLeast(Double min) {
+        return min == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("price"), min);
+    }
+
+    public static Specification<Sweet> priceAtMost(Double max) {
+        return max == null ? null : (root, query, cb) -> cb.lessThanOrEqualTo(root.get("price"), max);
+    }
+
+    public static Specification<Sweet> idAfter(Long afterId) {
+        return afterId == null ? null : (root, query, cb) -> cb.greaterThan(root.get("id"), afterId);
+    }
+
+    public static Specification<Sweet> idIn(Collection<Long> ids) {
+        return (root, query, cb) -> root.get("id").in(ids);
+    }
+
+    /** Escapes {@code %}, {@code _} and the escape character itself for a LIKE with {@code ESCAPE '\\'}. */
+    public static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -2,6 +2,10 @@ package com.example.sweetshop.repository;
 
 import com.example.sweetshop.entity.Users;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
@@ -9,4 +13,15 @@ public interface UserRepository extends JpaRepository<Users, Long> {
     boolean existsByEmail(String email);
     Optional<Users> findByEmail(String email);
 
+    /**
+     * Inserts the user unless the email is taken, in one statement. Returns 1 when inserted and
+     * 0 when another row already holds the email, so the unique constraint decides races.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO users (username, email, password, role) "
+            + "VALUES (:username, :email, :password, :role) ON CONFLICT (email) DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("username") String username, @Param("email") String email,
+                       @Param("password") String password, @Param("role") String role);
 }
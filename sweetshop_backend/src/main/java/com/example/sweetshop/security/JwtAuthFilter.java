@@ -1,25 +1,40 @@
 package com.example.sweetshop.security;
 
 import com.example.sweetshop.service.CustomUserDetailsService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtUtils jwtUtils;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationList revocationList;
+    private final Timer validTokens;
+    private final Timer invalidTokens;
 
-    public JwtAuthFilter(JwtUtils jwtUtils, CustomUserDetailsService userDetailsService) {
+    public JwtAuthFilter(JwtUtils jwtUtils, CustomUserDetailsService userDetailsService,
+                         TokenRevocationList revocationList, MeterRegistry registry) {
         this.jwtUtils = jwtUtils;
         this.userDetailsService = userDetailsService;
+        this.revocationList = revocationList;
+        // built once so the request path only pays for a clock read and a record
+        this.validTokens = Timer.builder("jwt.verify").tag("result", "valid").register(registry);
+        this.invalidTokens = Timer.builder("jwt.verify").tag("result", "invalid").register(registry);
     }
 
     private String parseJwt(HttpServletRequest request) {
@@ -35,16 +50,34 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             throws IOException, jakarta.servlet.ServletException {
         try {
             String jwt = parseJwt(request);
-            if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-                String username = jwtUtils.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+            Claims claims = jwt == null ? null : verify(jwt);
+            if (claims != null) {
+                String username = claims.getSubject();
+                if (!revocationList.isRevoked(username, claims.getIssuedAt())) {
+                    UserDetails userDetails = resolveUser(username, jwtUtils.getAuthorities(claims));
+                    UsernamePasswordAuthenticationToken authentication =
+                            new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                }
             }
         } catch (Exception ex) {
             // log if needed
         }
         filterChain.doFilter(request, response);
     }
+
+    private Claims verify(String jwt) {
+        long start = System.nanoTime();
+        Claims claims = jwtUtils.verify(jwt);
+        (claims == null ? invalidTokens : validTokens).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return claims;
+    }
+
+    private UserDetails resolveUser(String username, List<GrantedAuthority> authorities) {
+        if (authorities == null) {
+            // token predates the roles claim, fall back to the database until it expires
+            return userDetailsService.loadUserByUsername(username);
+        }
+        return new User(username, "", authorities);
+    }
 }
@@ -0,0 +1,63 @@
+package com.example.sweetshop.security;
+
+import com.example.sweetshop.exception.RevocationListFullException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory replacement for the per-request user lookup: a token is rejected when it was
+ * issued before the last revocation recorded for its subject. Both are compared in whole
+ * seconds, the resolution of the {@code iat} claim. Entries older than the token lifetime can
+ * never match a live token and are purged once the list reaches
+ * {@code app.revocationListMaxEntries}; a live entry is never dropped, so the cap has to cover
+ * the sign-outs expected within one {@code app.jwtExpirationMs}. Past it, new revocations
+ * are refused rather than forgetting old ones.
+ */
+@Component
+public class TokenRevocationList {
+
+    // epoch seconds
+    private final Map<String, Long> revokedBefore = new ConcurrentHashMap<>();
+
+    @Value("${app.jwtExpirationMs}")
+    private int jwtExpirationMs;
+
+    @Value("${app.revocationListMaxEntries:10000}")
+    private int maxEntries;
+
+    public void revokeAll(String username) {
+        revokeAll(username, System.currentTimeMillis());
+    }
+
+    void revokeAll(String username, long nowMs) {
+        long cutoff = nowMs / 1000;
+        // moving an existing cutoff forward never needs room
+        if (revokedBefore.computeIfPresent(username, (k, previous) -> Math.max(previous, cutoff)) != null) {
+            return;
+        }
+        if (revokedBefore.size() >= maxEntries) {
+            purgeExpired(cutoff);
+            if (revokedBefore.size() >= maxEntries) {
+                throw new RevocationListFullException();
+            }
+        }
+        revokedBefore.merge(username, cutoff, Math::max);
+    }
+
+    public boolean isRevoked(String username, Date issuedAt) {
+        if (revokedBefore.isEmpty()) {
+            return false;
+        }
+        Long cutoff = revokedBefore.get(username);
+        return cutoff != null && (issuedAt == null || issuedAt.getTime() / 1000 < cutoff);
+    }
+
+    private void purgeExpired(long nowSeconds) {
+        long oldestLiveIssue = nowSeconds - jwtExpirationMs / 1000 - 1;
+        revokedBefore.values().removeIf(cutoff -> cutoff < oldestLiveIssue);
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.sweetshop.security;
+
+import com.example.sweetshop.entity.Users;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.List;
+
+/**
+ * Authenticated user as loaded for login: the email is the principal name, and the display name
+ * and stored role travel along so the login response needs no second lookup.
+ */
+public class UserPrincipal extends User {
+
+    private final String displayName;
+    private final String role;
+
+    public UserPrincipal(Users user) {
+        super(user.getEmail(), user.getPassword(),
+                List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().replace("ROLE_", ""))));
+        this.displayName = user.getUsername();
+        this.role = user.getRole();
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getRole() {
+        return role;
+    }
+}
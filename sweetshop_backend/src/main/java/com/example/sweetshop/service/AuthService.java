@@ -7,6 +7,8 @@ import com.example.sweetshop.entity.Users;
 import com.example.sweetshop.exception.EmailAlreadyExistsException;
 import com.example.sweetshop.repository.UserRepository;
 import com.example.sweetshop.security.JwtUtils;
+import com.example.sweetshop.security.TokenRevocationList;
+import com.example.sweetshop.security.UserPrincipal;
 import lombok.AllArgsConstructor;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -14,28 +16,26 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
-import java.util.Optional;
-
 @Service
 @AllArgsConstructor
 public class AuthService {
 
+    private static final String SELF_SERVICE_ROLE = "ROLE_USER";
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
     private final JwtUtils jwtUtils;
+    private final TokenRevocationList revocationList;
 
     public void register(RegisterRequest req){
 
-        if (userRepository.existsByEmail(req.getEmail())) {
+        String password = passwordEncoder.encode(req.getPassword());
+        // whatever role the client asks for: admins are granted in the database, never by signing up
+        int inserted = userRepository.insertIfAbsent(req.getUsername(), req.getEmail(), password, SELF_SERVICE_ROLE);
+        if (inserted == 0) {
             throw new EmailAlreadyExistsException("Email already exists");
         }
-        Users u = new Users();
-        u.setUsername(req.getUsername());
-        u.setEmail(req.getEmail());
-        u.setPassword(passwordEncoder.encode(req.getPassword()));
-        u.setRole(req.getRole());
-        userRepository.save(u);
 
     }
 
@@ -57,22 +57,29 @@ public class AuthService {
     public LoginResponse login(AuthRequest req) {
         Authentication authentication = authenticationManager.authenticate(
                 new UsernamePasswordAuthenticationToken(req.getEmail(), req.getPassword()));
-        Optional<Users> userOptional =userRepository.findByEmail(req.getEmail());
-
-        if (userOptional.isEmpty()) {
-            throw new RuntimeException("User not found for email: " + req.getEmail());
-        }
-        Users user = userOptional.get();
         LoginResponse loginResponse=new LoginResponse();
-        loginResponse.setUsername(user.getUsername());
-        loginResponse.setEmail(user.getEmail());
-        loginResponse.setRole(user.getRole());
+        if (authentication.getPrincipal() instanceof UserPrincipal principal) {
+            // loaded once by the authentication provider
+            loginResponse.setUsername(principal.getDisplayName());
+            loginResponse.setEmail(principal.getUsername());
+            loginResponse.setRole(principal.getRole());
+        } else {
+            Users user = userRepository.findByEmail(req.getEmail())
+                    .orElseThrow(() -> new RuntimeException("User not found for email: " + req.getEmail()));
+            loginResponse.setUsername(user.getUsername());
+            loginResponse.setEmail(user.getEmail());
+            loginResponse.setRole(user.getRole());
+        }
 
-        String token = jwtUtils.generateToken(authentication.getName());
+        String token = jwtUtils.generateToken(authentication.getName(), authentication.getAuthorities());
         loginResponse.setToken(token);
         return  loginResponse;
     }
 
+    public void logout(String email) {
+        revocationList.revokeAll(email);
+    }
+
     private Authentication authenticateUser(AuthRequest request) {
         UsernamePasswordAuthenticationToken authToken =
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword());
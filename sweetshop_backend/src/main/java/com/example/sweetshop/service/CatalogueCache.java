@@ -0,0 +1,199 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.mapper.SweetMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through cache for catalogue queries. Results are stored as detached copies
+ * and kept current after commit of every change: a stock change with a known figure is
+ * patched into the cached copies of that sweet, found through a reverse index from sweet id to
+ * the entries holding it; other changes drop the entries that contain the sweet, plus entries
+ * whose query the new state would now match. Hits, misses, evictions and size are published
+ * as the {@code catalogue} cache metrics.
+ */
+@Component
+public class CatalogueCache implements MeterBinder {
+
+    private final Cache<CatalogueQuery, List<Sweet>> cache;
+    // sweet id -> the cached copy of that sweet in each entry holding it
+    private final Map<Long, Map<CatalogueQuery, Sweet>> holders = new ConcurrentHashMap<>();
+    private final Set<CatalogueQuery> stockSorted = ConcurrentHashMap.newKeySet();
+    private final Set<Load> loading = ConcurrentHashMap.newKeySet();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public CatalogueCache(@Value("${app.catalogueCacheMaxEntries:1000}") long maxEntries,
+                          @Value("${app.catalogueCacheTtlMs:60000}") long ttlMs) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMs))
+                .executor(Runnable::run) // unlink removed entries before the next change looks them up
+                .removalListener((CatalogueQuery query, List<Sweet> sweets, RemovalCause cause) -> {
+                    if (cause != RemovalCause.REPLACED) {
+                        stockSorted.remove(query);
+                    }
+                    unlink(query, sweets);
+                })
+                .recordStats()
+                .build();
+    }
+
+    public List<Sweet> get(CatalogueQuery query, Supplier<List<Sweet>> loader) {
+        List<Sweet> cached = cache.getIfPresent(query);
+        if (cached != null) {
+            return cached;
+        }
+        // changes committed while loading are collected for this query alone and settled below
+        Load load = new Load(query);
+        loading.add(load);
+        List<Sweet> loaded;
+        try {
+            loaded = loader.get().stream()
+                    .map(s -> SweetMapper.toEntity(SweetMapper.toDto(s)))
+                    .toList();
+            cache.put(query, loaded);
+            link(query, loaded);
+        } finally {
+            loading.remove(load);
+        }
+        if (!load.settle(loaded)) {
+            drop(query, loaded);
+        }
+        return loaded;
+    }
+
+    @Order(0) // ahead of CatalogueVersion
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSweetChanged(SweetChangedEvent event) {
+        for (Load load : loading) {
+            load.record(event);
+        }
+        Map<CatalogueQuery, Sweet> holding = holders.getOrDefault(event.sweetId(), Map.of());
+        boolean knownStock = event.type() == SweetChangedEvent.Type.STOCK && event.current() != null;
+        for (Map.Entry<CatalogueQuery, Sweet> entry : holding.entrySet()) {
+            if (knownStock && !entry.getKey().dependsOnStock()) {
+                entry.getValue().setQuantity(event.current().getQuantity());
+            } else {
+                invalidate(entry.getKey());
+            }
+        }
+        if (event.type() == SweetChangedEvent.Type.STOCK) {
+            // membership of the other entries cannot change, but a stock-sorted page can
+            stockSorted.forEach(this::invalidate);
+        } else if (event.current() != null) {
+            // rare admin edits: check every query against the new state
+            cache.asMap().keySet().forEach(query -> {
+                if (query.matches(event.current())) {
+                    invalidate(query);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "catalogue");
+        FunctionCounter.builder("cache.invalidations", invalidations, AtomicLong::get)
+                .tag("cache", "catalogue")
+                .description("Entries dropped because a change touched their result")
+                .register(registry);
+    }
+
+    private void invalidate(CatalogueQuery query) {
+        if (cache.asMap().remove(query) != null) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    private void drop(CatalogueQuery query, List<Sweet> sweets) {
+        if (cache.asMap().remove(query, sweets)) {
+            invalidations.incrementAndGet();
+        }
+    }
+
+    private void link(CatalogueQuery query, List<Sweet> sweets) {
+        if (query.dependsOnStock()) {
+            stockSorted.add(query);
+        }
+        for (Sweet s : sweets) {
+            holders.computeIfAbsent(s.getId(), id -> new ConcurrentHashMap<>()).put(query, s);
+        }
+    }
+
+    // identity checks, so an entry already replaced under the same query keeps its links
+    private void unlink(CatalogueQuery query, List<Sweet> sweets) {
+        if (query == null || sweets == null) {
+            return;
+        }
+        for (Sweet s : sweets) {
+            holders.computeIfPresent(s.getId(), (id, holding) -> {
+                holding.computeIfPresent(query, (q, linked) -> linked == s ? null : linked);
+                return holding.isEmpty() ? null : holding;
+            });
+        }
+    }
+
+    /** Changes committed while one query was being loaded. */
+    private static final class Load {
+        private final CatalogueQuery query;
+        private final Map<Long, Integer> stock = new ConcurrentHashMap<>();
+        private final Set<Long> suspect = ConcurrentHashMap.newKeySet();
+        private volatile boolean stale;
+
+        Load(CatalogueQuery query) {
+            this.query = query;
+        }
+
+        void record(SweetChangedEvent event) {
+            if (event.type() == SweetChangedEvent.Type.STOCK) {
+                if (query.dependsOnStock()) {
+                    stale = true;
+                } else if (event.current() != null) {
+                    stock.put(event.sweetId(), event.current().getQuantity());
+                } else {
+                    suspect.add(event.sweetId());
+                }
+            } else {
+                suspect.add(event.sweetId());
+                if (event.current() != null && query.matches(event.current())) {
+                    stale = true;
+                }
+            }
+        }
+
+        /** Applies the stock figures seen during the load; false when the result cannot be kept. */
+        boolean settle(List<Sweet> loaded) {
+            if (stale) {
+                return false;
+            }
+            for (Sweet s : loaded) {
+                if (suspect.contains(s.getId())) {
+                    return false;
+                }
+                Integer quantity = stock.get(s.getId());
+                if (quantity != null) {
+                    s.setQuantity(quantity);
+                }
+            }
+            return true;
+        }
+    }
+}
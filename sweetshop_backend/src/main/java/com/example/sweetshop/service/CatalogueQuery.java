@@ -0,0 +1,71 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+import org.springframework.data.domain.Sort;
+
+import java.util.Locale;
+
+/**
+ * A catalogue search: every non-null criterion must hold. Also the key of cached results,
+ * so text criteria are lower-cased up front and {@link #matches} tells whether a sweet
+ * belongs in the result.
+ */
+public record CatalogueQuery(String name, String category, Double minPrice, Double maxPrice,
+                             Sort sort, Integer limit) {
+
+    public CatalogueQuery {
+        name = normalize(name);
+        category = normalize(category);
+        sort = sort == null || sort.isUnsorted() ? Sort.by("id") : sort;
+    }
+
+    public static CatalogueQuery all() {
+        return new CatalogueQuery(null, null, null, null, null, null);
+    }
+
+    public static CatalogueQuery byName(String name) {
+        return new CatalogueQuery(name, null, null, null, null, null);
+    }
+
+    public static CatalogueQuery byCategory(String category) {
+        return new CatalogueQuery(null, category, null, null, null, null);
+    }
+
+    public static CatalogueQuery byPrice(Double min, Double max) {
+        return new CatalogueQuery(null, null, min, max, null, null);
+    }
+
+    public CatalogueQuery withSort(Sort sort) {
+        return new CatalogueQuery(name, category, minPrice, maxPrice, sort, limit);
+    }
+
+    public boolean isUnfiltered() {
+        return name == null && category == null && minPrice == null && maxPrice == null;
+    }
+
+    public boolean isSortedById() {
+        return sort.equals(Sort.by("id"));
+    }
+
+    /** Whether a stock change alone can reorder or reshape the result. */
+    public boolean dependsOnStock() {
+        return sort.getOrderFor("quantity") != null;
+    }
+
+    public boolean matches(SweetDto sweet) {
+        if (name != null && (sweet.getName() == null || !sweet.getName().toLowerCase(Locale.ROOT).contains(name))) {
+            return false;
+        }
+        if (category != null && !category.equalsIgnoreCase(sweet.getCategory())) {
+            return false;
+        }
+        if (minPrice != null && (sweet.getPrice() == null || sweet.getPrice() < minPrice)) {
+            return false;
+        }
+        return maxPrice == null || (sweet.getPrice() != null && sweet.getPrice() <= maxPrice);
+    }
+
+    private static String normalize(String text) {
+        return text == null || text.isBlank() ? null : text.trim().toLowerCase(Locale.ROOT);
+    }
+}
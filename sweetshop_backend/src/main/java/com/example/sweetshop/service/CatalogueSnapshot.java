@@ -0,0 +1,205 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.mapper.SweetMapper;
+import com.example.sweetshop.repository.SweetRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The full catalogue as ready-to-send JSON, plain and gzipped, for the unfiltered list. Each
+ * sweet is kept encoded on its own; after a change only the touched sweets are re-encoded, in
+ * the background, and the array is stitched together again. A snapshot is labelled with the
+ * {@link CatalogueVersion} it covers, and is only served while that is still the current one.
+ */
+@Component
+public class CatalogueSnapshot implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogueSnapshot.class);
+
+    /** One encoded catalogue; the arrays are never modified after construction. */
+    public record Snapshot(long version, byte[] json, byte[] gzip) {}
+
+    private final SweetRepository repo;
+    private final CatalogueVersion version;
+    private final ObjectMapper objectMapper;
+    private final Executor executor;
+    private final Map<Long, SweetChangedEvent> changed = new ConcurrentHashMap<>();
+    private final AtomicBoolean rebuildScheduled = new AtomicBoolean();
+    // not a monitor: the builds read the database, and a virtual thread must not pin its carrier for that
+    private final ReentrantLock lock = new ReentrantLock();
+    // guarded by lock
+    private final NavigableMap<Long, byte[]> encoded = new TreeMap<>();
+
+    @Value("${app.catalogueSnapshot:true}")
+    private boolean enabled = true;
+
+    private volatile Snapshot current;
+
+    public CatalogueSnapshot(SweetRepository repo, CatalogueVersion version, ObjectMapper objectMapper,
+                             @Qualifier("applicationTaskExecutor") Executor executor) {
+        this.repo = repo;
+        this.version = version;
+        this.objectMapper = objectMapper;
+        this.executor = executor;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (enabled) {
+            build();
+            log.info("Catalogue snapshot built, {} bytes", current.json().length);
+        }
+    }
+
+    /** The snapshot, or {@code null} when it is behind the catalogue and the regular path must answer. */
+    public Snapshot currentSnapshot() {
+        Snapshot snapshot = current;
+        return snapshot != null && snapshot.version() == version.current() ? snapshot : null;
+    }
+
+    // ahead of CatalogueVersion, so every change below a version is queued before that version is visible
+    @Order(0)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSweetChanged(SweetChangedEvent event) {
+        if (enabled) {
+            changed.put(event.sweetId(), event);
+        }
+    }
+
+    // behind CatalogueVersion, so the rebuild cannot finish under the version before this change
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void refreshAfterChange(SweetChangedEvent event) {
+        if (enabled && rebuildScheduled.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::rebuild);
+            } catch (RejectedExecutionException ex) {
+                rebuildScheduled.set(false);
+            }
+        }
+    }
+
+    void build() {
+        lock.lock();
+        try {
+            long covered = version.current();
+            changed.clear();
+            encoded.clear();
+            repo.findAll(Sort.by("id")).forEach(s -> encoded.put(s.getId(), encode(SweetMapper.toDto(s))));
+            current = assemble(covered);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void rebuild() {
+        lock.lock();
+        try {
+            applyChanges();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // caller holds lock
+    private void applyChanges() {
+        rebuildScheduled.set(false);
+        // read first: everything up to this version is already waiting in changed
+        long covered = version.current();
+        Map<Long, SweetChangedEvent> taken = new HashMap<>();
+        for (Map.Entry<Long, SweetChangedEvent> entry : changed.entrySet()) {
+            if (changed.remove(entry.getKey(), entry.getValue())) {
+                taken.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (taken.isEmpty()) {
+            // an earlier pass already applied everything up to this version
+            Snapshot snapshot = current;
+            if (snapshot != null && snapshot.version() < covered) {
+                current = new Snapshot(covered, snapshot.json(), snapshot.gzip());
+            }
+            return;
+        }
+        try {
+            List<Long> unknown = new ArrayList<>();
+            for (SweetChangedEvent event : taken.values()) {
+                if (event.type() == SweetChangedEvent.Type.DELETED) {
+                    encoded.remove(event.sweetId());
+                } else if (event.current() == null) {
+                    unknown.add(event.sweetId());
+                } else {
+                    encoded.put(event.sweetId(), encode(event.current()));
+                }
+            }
+            if (!unknown.isEmpty()) {
+                unknown.forEach(encoded::remove);
+                repo.findAllById(unknown).forEach(s -> encoded.put(s.getId(), encode(SweetMapper.toDto(s))));
+            }
+            current = assemble(covered);
+        } catch (RuntimeException ex) {
+            // keep the changes for the next attempt; until then the regular path answers
+            taken.forEach(changed::putIfAbsent);
+            log.warn("Could not refresh the catalogue snapshot", ex);
+        }
+    }
+
+    // caller holds lock
+    private Snapshot assemble(long covered) {
+        int length = 2 + Math.max(0, encoded.size() - 1);
+        for (byte[] sweet : encoded.values()) {
+            length += sweet.length;
+        }
+        byte[] json = new byte[length];
+        int at = 0;
+        json[at++] = '[';
+        for (byte[] sweet : encoded.values()) {
+            if (at > 1) {
+                json[at++] = ',';
+            }
+            System.arraycopy(sweet, 0, json, at, sweet.length);
+            at += sweet.length;
+        }
+        json[at] = ']';
+        return new Snapshot(covered, json, gzip(json));
+    }
+
+    private byte[] encode(SweetDto sweet) {
+        try {
+            return objectMapper.writeValueAsBytes(sweet);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Could not encode sweet " + sweet.getId(), ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream compressed = new GZIPOutputStream(out)) {
+            compressed.write(json);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+}
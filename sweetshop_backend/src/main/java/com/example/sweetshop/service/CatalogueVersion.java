@@ -0,0 +1,36 @@
+package com.example.sweetshop.service;
+
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Monotonic version of the catalogue as a whole, moved on after commit of every change. The
+ * epoch is fixed per process, so tags handed out before a restart never match again.
+ */
+@Component
+public class CatalogueVersion {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong version = new AtomicLong();
+
+    // after the cache, index and snapshot have taken the change in, so a reader that sees the
+    // new version sees them updated; only the snapshot rebuild is scheduled later
+    @Order(Ordered.LOWEST_PRECEDENCE - 1)
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSweetChanged(SweetChangedEvent event) {
+        version.incrementAndGet();
+    }
+
+    public long current() {
+        return version.get();
+    }
+
+    /** A strong entity tag for one representation of a catalogue read at the current version. */
+    public String etag(String representation) {
+        return "\"" + epoch + "-" + version.get() + "-" + representation + "\"";
+    }
+}
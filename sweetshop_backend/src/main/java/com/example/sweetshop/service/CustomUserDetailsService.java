@@ -2,6 +2,7 @@ package com.example.sweetshop.service;
 
 import com.example.sweetshop.entity.Users;
 import com.example.sweetshop.repository.UserRepository;
+import com.example.sweetshop.security.UserPrincipal;
 import org.springframework.security.core.userdetails.*;
 import org.springframework.stereotype.Service;
 
@@ -15,9 +16,6 @@ public class CustomUserDetailsService implements UserDetailsService {
     public UserDetails loadUserByUsername(String usernameOrEmail) throws UsernameNotFoundException {
         Users user = repo.findByEmail(usernameOrEmail)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + usernameOrEmail));
-        return User.withUsername(user.getEmail())
-                .password(user.getPassword())
-                .roles(user.getRole().replace("ROLE_",""))
-                .build();
+        return new UserPrincipal(user);
     }
 }
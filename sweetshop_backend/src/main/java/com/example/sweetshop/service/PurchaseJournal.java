@@ -0,0 +1,306 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.entity.StockMovement;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only, memory-mapped log of stock movements for {@link PurchaseMode#JOURNAL}. Every entry
+ * gets a sequence number; {@link #append} returns only once the entry has been forced to disk,
+ * and callers arriving while a force is in progress are covered by the next one, so a burst of
+ * purchases shares a handful of fsyncs. The journal is split into fixed-size segment files named
+ * after their first sequence number; segments wholly covered by the database checkpoint are
+ * deleted.
+ */
+@Component
+public class PurchaseJournal implements AutoCloseable {
+
+    private static final int MAGIC = 0x53574a31;
+    // magic, seq, sweet id, delta, kind, epoch millis, crc
+    private static final int RECORD = 4 + 8 + 8 + 4 + 4 + 8 + 4;
+    private static final String SUFFIX = ".journal";
+
+    /** A durable stock change waiting to reach the {@code quantity} column. */
+    public record Entry(long seq, StockMovement movement) {}
+
+    /** What {@link #open} found beyond the checkpoint, oldest first, and the last sequence. */
+    public record Recovery(List<StockMovement> movements, long lastSeq) {
+
+        /** The recovered movements summed per sweet, leaving out sweets that net to zero. */
+        public Map<Long, Integer> deltas() {
+            Map<Long, Integer> deltas = new HashMap<>();
+            movements.forEach(m -> deltas.merge(m.sweetId(), m.delta(), Integer::sum));
+            deltas.values().removeIf(d -> d == 0);
+            return deltas;
+        }
+    }
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private final Deque<Entry> undrained = new ArrayDeque<>();
+    private final NavigableMap<Long, Path> segments = new TreeMap<>();
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int forcedPosition;
+    private long lastSeq;
+    private volatile long durableSeq;
+
+    public PurchaseJournal(@Value("${app.journalDir:./data/journal}") String dir,
+                           @Value("${app.journalSegmentBytes:16777216}") int segmentBytes) {
+        this.dir = Path.of(dir);
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens the journal for appending and returns the movements logged after {@code checkpoint},
+     * which the database has not seen yet. Sequence numbers continue after both the journal and
+     * the checkpoint, whichever is further.
+     */
+    public Recovery open(long checkpoint) {
+        lock.lock();
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                files.filter(f -> f.getFileName().toString().endsWith(SUFFIX))
+                        .forEach(f -> segments.put(firstSeqOf(f), f));
+            }
+            List<StockMovement> recovered = new ArrayList<>();
+            long last = checkpoint;
+            int end = 0;
+            for (Path segment : segments.values()) {
+                ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(segment));
+                end = 0;
+                while (end + RECORD <= data.limit() && data.getInt(end) == MAGIC) {
+                    long seq = data.getLong(end + 4);
+                    long sweetId = data.getLong(end + 12);
+                    int delta = data.getInt(end + 20);
+                    int kind = data.getInt(end + 24);
+                    long at = data.getLong(end + 28);
+                    if (data.getInt(end + 36) != crc(seq, sweetId, delta, kind, at)) {
+                        break; // torn write at the tail
+                    }
+                    if (seq > checkpoint) {
+                        recovered.add(new StockMovement(sweetId, StockMovement.Kind.values()[kind], delta, null,
+                                Instant.ofEpochMilli(at)));
+                    }
+                    last = Math.max(last, seq);
+                    end += RECORD;
+                }
+            }
+            lastSeq = last;
+            durableSeq = last;
+            if (segments.isEmpty()) {
+                startSegment(last + 1);
+            } else {
+                map(segments.lastEntry().getValue(), end);
+            }
+            return new Recovery(recovered, last);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not open purchase journal in " + dir, ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Logs one movement and waits until it is on disk. */
+    public long append(StockMovement movement) {
+        long seq;
+        lock.lock();
+        try {
+            seq = write(movement);
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(seq);
+        return seq;
+    }
+
+    /** Logs several movements and waits for a single force covering all of them. */
+    public long appendAll(List<StockMovement> movements) {
+        long seq = 0;
+        lock.lock();
+        try {
+            for (StockMovement movement : movements) {
+                seq = write(movement);
+            }
+        } finally {
+            lock.unlock();
+        }
+        awaitDurable(seq);
+        return seq;
+    }
+
+    /** Removes and returns, in sequence order, every entry that is on disk but not yet drained. */
+    public List<Entry> drainDurable() {
+        lock.lock();
+        try {
+            List<Entry> batch = new ArrayList<>();
+            while (!undrained.isEmpty() && undrained.peekFirst().seq() <= durableSeq) {
+                batch.add(undrained.pollFirst());
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Puts back a batch that could not be persisted, ahead of anything appended since. */
+    public void requeue(List<Entry> batch) {
+        lock.lock();
+        try {
+            for (int i = batch.size() - 1; i >= 0; i--) {
+                undrained.addFirst(batch.get(i));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Deletes segments whose every entry is at or below {@code checkpoint}. */
+    public void truncate(long checkpoint) {
+        lock.lock();
+        try {
+            Iterator<Map.Entry<Long, Path>> it = segments.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<Long, Path> segment = it.next();
+                Long next = segments.higherKey(segment.getKey());
+                if (next == null || next - 1 > checkpoint) {
+                    return;
+                }
+                Files.deleteIfExists(segment.getValue());
+                it.remove();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        lock.lock();
+        try {
+            if (channel != null) {
+                buffer.force();
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // caller holds lock
+    private long write(StockMovement movement) {
+        if (channel == null) {
+            throw new IllegalStateException("Purchase journal is not open");
+        }
+        if (position + RECORD + 4 > segmentBytes) {
+            rotate();
+        }
+        long seq = ++lastSeq;
+        int kind = movement.kind().ordinal();
+        long at = movement.occurredAt().toEpochMilli();
+        buffer.putLong(position + 4, seq);
+        buffer.putLong(position + 12, movement.sweetId());
+        buffer.putInt(position + 20, movement.delta());
+        buffer.putInt(position + 24, kind);
+        buffer.putLong(position + 28, at);
+        buffer.putInt(position + 36, crc(seq, movement.sweetId(), movement.delta(), kind, at));
+        buffer.putInt(position + RECORD, 0);
+        // the magic goes last, so a half-written record never looks valid
+        buffer.putInt(position, MAGIC);
+        position += RECORD;
+        undrained.addLast(new Entry(seq, movement));
+        return seq;
+    }
+
+    private void awaitDurable(long seq) {
+        forceLock.lock();
+        try {
+            if (durableSeq >= seq) {
+                return; // a force started after our write already covered it
+            }
+            MappedByteBuffer target;
+            int from;
+            int to;
+            long upTo;
+            lock.lock();
+            try {
+                target = buffer;
+                from = forcedPosition;
+                to = position;
+                upTo = lastSeq;
+                forcedPosition = position;
+            } finally {
+                lock.unlock();
+            }
+            target.force(from, to - from);
+            durableSeq = upTo;
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    // caller holds lock
+    private void rotate() {
+        buffer.force();
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        startSegment(lastSeq + 1);
+    }
+
+    private void startSegment(long firstSeq) {
+        Path segment = dir.resolve(String.format("%020d%s", firstSeq, SUFFIX));
+        segments.put(firstSeq, segment);
+        map(segment, 0);
+    }
+
+    private void map(Path segment, int writeFrom) {
+        try {
+            channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+            position = writeFrom;
+            forcedPosition = writeFrom;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not map journal segment " + segment, ex);
+        }
+    }
+
+    private static long firstSeqOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    private static int crc(long seq, long sweetId, int delta, int kind, long at) {
+        CRC32C crc = new CRC32C();
+        crc.update(ByteBuffer.allocate(RECORD - 8).putLong(seq).putLong(sweetId).putInt(delta).putInt(kind).putLong(at)
+                .flip());
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.entity.StockMovement;
+import com.example.sweetshop.repository.StockMovementRepository;
+import com.example.sweetshop.repository.SweetRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves stock changes from the {@link PurchaseJournal} into the {@code quantity} column when
+ * purchases run in {@link PurchaseMode#JOURNAL} mode. At startup it replays whatever the journal
+ * holds beyond the database checkpoint, then loads the {@link StockLedger}; afterwards each flush
+ * group-commits the durable entries as one JDBC batch, advancing the checkpoint in the same
+ * transaction, together with the stock history of those entries, so no entry is ever applied
+ * twice.
+ */
+@Component
+public class PurchaseJournalDrainer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(PurchaseJournalDrainer.class);
+
+    private final PurchaseJournal journal;
+    private final StockLedger ledger;
+    private final SweetRepository repo;
+    private final StockMovementRepository movements;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+
+    @Value("${app.purchaseMode:conditional}")
+    private PurchaseMode purchaseMode = PurchaseMode.CONDITIONAL;
+
+    public PurchaseJournalDrainer(PurchaseJournal journal, StockLedger ledger, SweetRepository repo,
+                                  StockMovementRepository movements, TransactionTemplate transactionTemplate,
+                                  ApplicationEventPublisher events) {
+        this.journal = journal;
+        this.ledger = ledger;
+        this.repo = repo;
+        this.movements = movements;
+        this.transactionTemplate = transactionTemplate;
+        this.events = events;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (purchaseMode != PurchaseMode.JOURNAL) {
+            return;
+        }
+        long checkpoint = repo.findJournalCheckpoint();
+        PurchaseJournal.Recovery recovery = journal.open(checkpoint);
+        if (recovery.lastSeq() > checkpoint) {
+            transactionTemplate.executeWithoutResult(status -> {
+                repo.adjustQuantities(recovery.deltas());
+                movements.record(recovery.movements());
+                repo.saveJournalCheckpoint(recovery.lastSeq());
+            });
+            log.info("Replayed purchase journal from seq {} to {} ({} movements)",
+                    checkpoint + 1, recovery.lastSeq(), recovery.movements().size());
+            // views built from the table before the replay (snapshot, cache) must not stay current
+            publishStockChanges(recovery.deltas().keySet());
+        }
+        journal.truncate(recovery.lastSeq());
+        Map<Long, Integer> quantities = repo.findAllQuantities();
+        ledger.load(quantities);
+        log.info("Stock ledger loaded with {} sweets", quantities.size());
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledgerFlushIntervalMs:50}")
+    public void flush() {
+        if (purchaseMode != PurchaseMode.JOURNAL) {
+            return;
+        }
+        List<PurchaseJournal.Entry> batch = journal.drainDurable();
+        if (batch.isEmpty()) {
+            return;
+        }
+        Map<Long, Integer> deltas = new HashMap<>();
+        List<StockMovement> history = new ArrayList<>(batch.size());
+        for (PurchaseJournal.Entry entry : batch) {
+            deltas.merge(entry.movement().sweetId(), entry.movement().delta(), Integer::sum);
+            history.add(entry.movement());
+        }
+        long upTo = batch.get(batch.size() - 1).seq();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repo.adjustQuantities(deltas);
+                movements.record(history);
+                repo.saveJournalCheckpoint(upTo);
+            });
+        } catch (RuntimeException ex) {
+            journal.requeue(batch);
+            log.warn("Could not persist {} journal entries, will retry", batch.size(), ex);
+            return;
+        }
+        journal.truncate(upTo);
+        publishStockChanges(deltas.keySet());
+    }
+
+    private void publishStockChanges(Collection<Long> ids) {
+        ids.forEach(id -> events.publishEvent(new SweetChangedEvent(SweetChangedEvent.Type.STOCK, id, null)));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
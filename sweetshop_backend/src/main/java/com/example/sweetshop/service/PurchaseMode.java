@@ -0,0 +1,13 @@
+package com.example.sweetshop.service;
+
+public enum PurchaseMode {
+    /** Check and decrement in one guarded {@code UPDATE ... WHERE quantity >= ?} statement. */
+    CONDITIONAL,
+    /** Admit purchases against the in-memory {@link StockLedger} and persist the deltas in batches. */
+    LEDGER,
+    /**
+     * Like {@link #LEDGER}, but every change is appended to the local {@link PurchaseJournal}
+     * and acknowledged once it is on disk; the journal is replayed after a crash.
+     */
+    JOURNAL
+}
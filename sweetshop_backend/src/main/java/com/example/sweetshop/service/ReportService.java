@@ -0,0 +1,76 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.CategorySales;
+import com.example.sweetshop.dto.MovementPage;
+import com.example.sweetshop.dto.TopSeller;
+import com.example.sweetshop.repository.StockMovementRepository;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Sales reports read from the {@code sales_daily} rollup, which is kept up to date as stock
+ * moves, so a report never scans the raw movement history.
+ */
+@Service
+@Timed("sweet.reports")
+public class ReportService {
+
+    private static final int DEFAULT_DAYS = 30;
+
+    private final StockMovementRepository movements;
+
+    @Value("${app.maxReportDays:366}")
+    private int maxReportDays = 366;
+
+    @Value("${app.maxPageSize:200}")
+    private int maxPageSize = 200;
+
+    public ReportService(StockMovementRepository movements) {
+        this.movements = movements;
+    }
+
+    public List<TopSeller> topSellers(LocalDate from, LocalDate to, int limit) {
+        LocalDate end = to == null ? today() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_DAYS - 1) : from;
+        checkRange(start, end);
+        return movements.topSellers(start, end, checkLimit(limit));
+    }
+
+    public List<CategorySales> categorySales(LocalDate from, LocalDate to) {
+        LocalDate end = to == null ? today() : to;
+        LocalDate start = from == null ? end.minusDays(DEFAULT_DAYS - 1) : from;
+        checkRange(start, end);
+        return movements.categorySales(start, end);
+    }
+
+    /** Newest first; pass the page's {@code nextCursor} as {@code before} for the next one. */
+    public MovementPage history(Long sweetId, Long before, int limit) {
+        return movements.history(sweetId, before, checkLimit(limit));
+    }
+
+    private void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("Report range starts after it ends");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= maxReportDays) {
+            throw new IllegalArgumentException("Report range cannot exceed " + maxReportDays + " days");
+        }
+    }
+
+    private int checkLimit(int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("Limit must be greater than zero");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    private static LocalDate today() {
+        return LocalDate.now(ZoneOffset.UTC);
+    }
+}
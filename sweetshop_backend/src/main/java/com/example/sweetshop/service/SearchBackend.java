@@ -0,0 +1,13 @@
+package com.example.sweetshop.service;
+
+public enum SearchBackend {
+    /** Specification queries ({@code LIKE}, equality and range predicates) against Postgres. */
+    DATABASE,
+    /** {@link SweetSearchIndex} resolves matching ids; rows are then fetched by primary key. */
+    MEMORY,
+    /**
+     * Name searches go to the generated {@code tsvector} column and {@code pg_trgm}, ranked by
+     * relevance and always limited; other searches behave as {@link #DATABASE}.
+     */
+    FULLTEXT
+}
@@ -0,0 +1,153 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.entity.StockMovement;
+import com.example.sweetshop.exception.SweetNotFoundException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * In-memory view of the stock of every sweet, used to admit or reject purchases with a
+ * compare-and-set instead of a row lock. Each sweet has its own counter, so buyers of
+ * different sweets never contend. Changes that still have to reach the {@code quantity}
+ * column are accumulated per sweet until {@link StockLedgerSynchronizer} drains them, together
+ * with the movements that caused them. The committed details of each sweet are kept beside its
+ * counter, so a purchase can be answered without reading the row.
+ */
+@Component
+public class StockLedger {
+
+    private final Map<Long, AtomicInteger> stock = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final Queue<StockMovement> movements = new ConcurrentLinkedQueue<>();
+    private final Map<Long, SweetDto> details = new ConcurrentHashMap<>();
+
+    public void load(Map<Long, Integer> quantities) {
+        stock.clear();
+        details.clear();
+        pending.clear();
+        movements.clear();
+        quantities.forEach(this::put);
+    }
+
+    /**
+     * Takes {@code qty} units if they are available and returns what is left, or -1 when the
+     * sweet does not have enough stock.
+     */
+    public int tryReserve(Long id, int qty) {
+        AtomicInteger counter = counter(id);
+        while (true) {
+            int current = counter.get();
+            if (current < qty) {
+                return -1;
+            }
+            if (counter.compareAndSet(current, current - qty)) {
+                return current - qty;
+            }
+        }
+    }
+
+    public int add(Long id, int qty) {
+        return counter(id).addAndGet(qty);
+    }
+
+    /** Overwrites the stock of a sweet and returns the previous value. */
+    public int set(Long id, int qty) {
+        return counter(id).getAndSet(qty);
+    }
+
+    public int available(Long id) {
+        return counter(id).get();
+    }
+
+    public void put(Long id, Integer qty) {
+        stock.put(id, new AtomicInteger(qty == null ? 0 : qty));
+    }
+
+    public void remove(Long id) {
+        stock.remove(id);
+        pending.remove(id);
+        details.remove(id);
+    }
+
+    /**
+     * Name, category and price of a sweet as last committed; {@code loader} fills them in on
+     * first use. The quantity in the result is not maintained, ask {@link #available} for it.
+     */
+    public SweetDto details(Long id, Function<Long, SweetDto> loader) {
+        SweetDto known = details.get(id);
+        if (known != null) {
+            return known;
+        }
+        // loaded outside the map so the read never runs under a bin lock; a committed change wins
+        SweetDto loaded = loader.apply(id);
+        SweetDto raced = details.putIfAbsent(id, loaded);
+        return raced == null ? loaded : raced;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSweetChanged(SweetChangedEvent event) {
+        if (event.type() == SweetChangedEvent.Type.DELETED) {
+            details.remove(event.sweetId());
+        } else if (event.type() != SweetChangedEvent.Type.STOCK && event.current() != null) {
+            details.put(event.sweetId(), event.current());
+        }
+    }
+
+    public void recordPending(Long id, int delta) {
+        pending.computeIfAbsent(id, k -> new AtomicInteger()).addAndGet(delta);
+    }
+
+    public void recordPending(StockMovement movement) {
+        recordPending(movement.sweetId(), movement.delta());
+        movements.add(movement);
+    }
+
+    /** Removes and returns every non-zero delta recorded since the previous drain. */
+    public Map<Long, Integer> drainPending() {
+        Map<Long, Integer> drained = new HashMap<>();
+        pending.forEach((id, delta) -> {
+            int value = delta.getAndSet(0);
+            if (value != 0) {
+                drained.put(id, value);
+            }
+        });
+        return drained;
+    }
+
+    /** Puts back deltas that could not be persisted so the next drain retries them. */
+    public void restorePending(Map<Long, Integer> deltas) {
+        deltas.forEach(this::recordPending);
+    }
+
+    /** Removes and returns the movements recorded since the previous drain, oldest first. */
+    public List<StockMovement> drainMovements() {
+        List<StockMovement> drained = new ArrayList<>();
+        for (StockMovement m = movements.poll(); m != null; m = movements.poll()) {
+            drained.add(m);
+        }
+        return drained;
+    }
+
+    public void restoreMovements(List<StockMovement> drained) {
+        movements.addAll(drained);
+    }
+
+    private AtomicInteger counter(Long id) {
+        AtomicInteger counter = stock.get(id);
+        if (counter == null) {
+            throw new SweetNotFoundException(id);
+        }
+        return counter;
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.entity.StockMovement;
+import com.example.sweetshop.repository.StockMovementRepository;
+import com.example.sweetshop.repository.SweetRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the {@link StockLedger} and the {@code sweet.quantity} column in step when purchases
+ * run in {@link PurchaseMode#LEDGER} mode: the ledger is loaded from the table before the
+ * application starts serving requests, and accumulated deltas are written back in one JDBC
+ * batch per flush interval and once more on shutdown. The movements behind those deltas are
+ * written to the stock history in the same transaction; a movement recorded while a flush is
+ * under way may be written one flush before or after its delta.
+ */
+@Component
+public class StockLedgerSynchronizer implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(StockLedgerSynchronizer.class);
+
+    private final StockLedger ledger;
+    private final SweetRepository repo;
+    private final StockMovementRepository movements;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
+
+    @Value("${app.purchaseMode:conditional}")
+    private PurchaseMode purchaseMode = PurchaseMode.CONDITIONAL;
+
+    public StockLedgerSynchronizer(StockLedger ledger, SweetRepository repo, StockMovementRepository movements,
+                                   TransactionTemplate transactionTemplate, ApplicationEventPublisher events) {
+        this.ledger = ledger;
+        this.repo = repo;
+        this.movements = movements;
+        this.transactionTemplate = transactionTemplate;
+        this.events = events;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (purchaseMode == PurchaseMode.LEDGER) {
+            Map<Long, Integer> quantities = repo.findAllQuantities();
+            ledger.load(quantities);
+            log.info("Stock ledger loaded with {} sweets", quantities.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledgerFlushIntervalMs:50}")
+    public void flush() {
+        if (purchaseMode != PurchaseMode.LEDGER) {
+            return;
+        }
+        List<StockMovement> history = ledger.drainMovements();
+        Map<Long, Integer> deltas = ledger.drainPending();
+        if (deltas.isEmpty() && history.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repo.adjustQuantities(deltas);
+                movements.record(history);
+            });
+        } catch (RuntimeException ex) {
+            ledger.restorePending(deltas);
+            ledger.restoreMovements(history);
+            log.warn("Could not persist {} stock deltas, will retry", deltas.size(), ex);
+            return;
+        }
+        // readers of the table can now see the new figures
+        deltas.keySet().forEach(id ->
+                events.publishEvent(new SweetChangedEvent(SweetChangedEvent.Type.STOCK, id, null)));
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+}
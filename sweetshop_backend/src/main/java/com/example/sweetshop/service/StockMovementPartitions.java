@@ -0,0 +1,49 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.repository.StockMovementRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+
+/**
+ * Keeps monthly {@code stock_movement} partitions in place from last month up to
+ * {@code app.movementPartitionsAhead} months ahead, so writes never land in the default
+ * partition. Old months can be detached or dropped as whole tables.
+ */
+@Component
+public class StockMovementPartitions {
+
+    private static final Logger log = LoggerFactory.getLogger(StockMovementPartitions.class);
+
+    private final StockMovementRepository movements;
+
+    @Value("${app.movementPartitionsAhead:2}")
+    private int monthsAhead = 2;
+
+    public StockMovementPartitions(StockMovementRepository movements) {
+        this.movements = movements;
+    }
+
+    // at construction time, so the partitions exist before the journal drainer replays into them
+    @PostConstruct
+    @Scheduled(cron = "${app.movementPartitionCron:0 0 3 * * *}", zone = "UTC")
+    public void ensurePartitions() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        for (int i = -1; i <= monthsAhead; i++) {
+            YearMonth month = current.plusMonths(i);
+            try {
+                movements.createPartition(month);
+            } catch (DataAccessException ex) {
+                // typically rows for that month already sit in the default partition
+                log.warn("Could not create stock_movement partition for {}", month, ex);
+            }
+        }
+    }
+}
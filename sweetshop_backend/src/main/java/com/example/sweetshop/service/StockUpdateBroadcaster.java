@@ -0,0 +1,281 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.dto.SweetUpdate;
+import com.example.sweetshop.exception.SweetNotFoundException;
+import com.example.sweetshop.mapper.SweetMapper;
+import com.example.sweetshop.repository.SweetRepository;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes committed sweet changes to Server-Sent Events subscribers. Changes are coalesced per
+ * sweet for {@code app.stockStreamCoalesceMs} and then sent to every subscriber as one
+ * {@code stock} event holding a JSON array of {@link SweetUpdate}s, latest state only.
+ * <p>
+ * Connections hold no thread: each write runs on its own virtual thread, at most one in flight
+ * per subscriber, so a client that stops reading blocks only its own writer. Updates arriving meanwhile are merged into that subscriber's pending
+ * map, so a slow reader gets fewer, fresher events. A subscriber whose write has been stuck for
+ * {@code app.stockStreamMaxLagMs}, or whose backlog passes {@code app.stockStreamMaxPending}
+ * sweets, is disconnected and can reconnect and reload the catalogue.
+ */
+@Component
+public class StockUpdateBroadcaster implements MeterBinder {
+
+    private final SweetRepository repo;
+    private final StockLedger ledger;
+    private final Executor executor;
+    private final Map<Long, SweetChangedEvent> changed = new ConcurrentHashMap<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    @Value("${app.purchaseMode:conditional}")
+    private PurchaseMode purchaseMode = PurchaseMode.CONDITIONAL;
+
+    @Value("${app.stockStreamTimeoutMs:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    @Value("${app.stockStreamHeartbeatMs:15000}")
+    private long heartbeatMs = 15_000;
+
+    @Value("${app.stockStreamMaxLagMs:10000}")
+    private long maxLagMs = 10_000;
+
+    @Value("${app.stockStreamMaxPending:1000}")
+    private int maxPending = 1000;
+
+    @Autowired
+    public StockUpdateBroadcaster(SweetRepository repo, StockLedger ledger) {
+        // a virtual thread per write: a client that stops reading parks its own writer and nobody else's
+        this(repo, ledger, Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-write-", 0).factory()));
+    }
+
+    StockUpdateBroadcaster(SweetRepository repo, StockLedger ledger, Executor executor) {
+        this.repo = repo;
+        this.ledger = ledger;
+        this.executor = executor;
+    }
+
+    public SseEmitter subscribe() {
+        return subscribe(new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(ex -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSweetChanged(SweetChangedEvent event) {
+        if (!subscribers.isEmpty()) {
+            changed.put(event.sweetId(), event);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.stockStreamCoalesceMs:250}")
+    public void flush() {
+        List<SweetUpdate> batch = collect();
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.offer(batch, now);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ExecutorService writers) {
+            writers.shutdownNow();
+        }
+    }
+
+    public int subscriberCount() {
+        return subscribers.size();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("sweet.stream.subscribers", subscribers, Set::size).register(registry);
+        FunctionCounter.builder("sweet.stream.dropped", dropped, AtomicLong::get).register(registry);
+    }
+
+    // one lookup per window for changes published without a figure (checkouts, ledger flushes)
+    private List<SweetUpdate> collect() {
+        Map<Long, SweetChangedEvent> taken = new TreeMap<>();
+        for (Map.Entry<Long, SweetChangedEvent> entry : changed.entrySet()) {
+            if (changed.remove(entry.getKey(), entry.getValue())) {
+                taken.put(entry.getKey(), entry.getValue());
+            }
+        }
+        if (taken.isEmpty()) {
+            return List.of();
+        }
+        List<Long> unknown = taken.values().stream()
+                .filter(e -> e.type() != SweetChangedEvent.Type.DELETED && e.current() == null)
+                .map(SweetChangedEvent::sweetId)
+                .toList();
+        Map<Long, SweetDto> loaded = new HashMap<>();
+        if (!unknown.isEmpty()) {
+            repo.findAllById(unknown).forEach(s -> loaded.put(s.getId(), SweetMapper.toDto(s)));
+        }
+        List<SweetUpdate> batch = new ArrayList<>(taken.size());
+        for (SweetChangedEvent event : taken.values()) {
+            SweetDto current = event.current() != null ? event.current() : loaded.get(event.sweetId());
+            if (event.type() == SweetChangedEvent.Type.DELETED || current == null) {
+                batch.add(SweetUpdate.deleted(event.sweetId()));
+            } else {
+                batch.add(withLedgerStock(SweetUpdate.of(current)));
+            }
+        }
+        return batch;
+    }
+
+    // the column lags the ledger, which holds the figure buyers are admitted against
+    private SweetUpdate withLedgerStock(SweetUpdate update) {
+        if (purchaseMode != PurchaseMode.CONDITIONAL) {
+            try {
+                update.setQuantity(ledger.available(update.getId()));
+            } catch (SweetNotFoundException ex) {
+                // not loaded into the ledger yet; the database figure will do
+            }
+        }
+        return update;
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    private final class Subscriber {
+        private final SseEmitter emitter;
+        // not a monitor, so a writer on a virtual thread never pins its carrier while it waits
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Map<Long, SweetUpdate> pending = new LinkedHashMap<>();
+        private boolean sending;
+        private boolean writing;
+        private boolean closed;
+        private long writingSince;
+        private long lastSent = System.nanoTime();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(List<SweetUpdate> batch, long now) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                batch.forEach(update -> pending.put(update.getId(), update));
+                if (sending) {
+                    // only a write that has started counts as lag; a drain still waiting to run does not
+                    boolean stuck = writing && now - writingSince > TimeUnit.MILLISECONDS.toNanos(maxLagMs);
+                    if (stuck || pending.size() > maxPending) {
+                        // the writer still owns the emitter; it completes it once its write returns
+                        closed = true;
+                        drop(this);
+                    }
+                    return;
+                }
+                if (pending.isEmpty() && now - lastSent < TimeUnit.MILLISECONDS.toNanos(heartbeatMs)) {
+                    return;
+                }
+                sending = true;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException ex) {
+                lock.lock();
+                try {
+                    sending = false;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void drain() {
+            while (true) {
+                List<SweetUpdate> out;
+                lock.lock();
+                try {
+                    if (closed) {
+                        emitter.complete();
+                        return;
+                    }
+                    out = new ArrayList<>(pending.values());
+                    pending.clear();
+                    writing = true;
+                    writingSince = System.nanoTime();
+                } finally {
+                    lock.unlock();
+                }
+                try {
+                    if (out.isEmpty()) {
+                        emitter.send(SseEmitter.event().comment("keep-alive"));
+                    } else {
+                        emitter.send(SseEmitter.event()
+                                .id(Long.toString(sequence.incrementAndGet()))
+                                .name("stock")
+                                .data(out, MediaType.APPLICATION_JSON));
+                    }
+                } catch (IOException | IllegalStateException ex) {
+                    // the client went away; the emitter callbacks have nothing more to tell us
+                    lock.lock();
+                    try {
+                        closed = true;
+                        writing = false;
+                    } finally {
+                        lock.unlock();
+                    }
+                    subscribers.remove(this);
+                    return;
+                }
+                lock.lock();
+                try {
+                    writing = false;
+                    lastSent = System.nanoTime();
+                    if (pending.isEmpty() || closed) {
+                        sending = false;
+                        if (closed) {
+                            emitter.complete();
+                        }
+                        return;
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
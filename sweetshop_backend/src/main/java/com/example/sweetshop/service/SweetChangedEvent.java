@@ -0,0 +1,18 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+
+/**
+ * Published by {@link SweetService} after every change to a sweet. {@code current} is the
+ * state after the change; it is {@code null} for deletions and for stock changes whose new
+ * figure is not known to the publisher (ledger flushes).
+ */
+public record SweetChangedEvent(Type type, Long sweetId, SweetDto current) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED,
+        STOCK
+    }
+}
@@ -0,0 +1,236 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.mapper.SweetMapper;
+import com.example.sweetshop.repository.SweetRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory secondary indexes over the searchable columns of the catalogue: a trigram index
+ * for case-insensitive name substrings, a hash index for category and a sorted index for
+ * price. Lookups return matching ids in ascending order and cost roughly the size of the
+ * smallest posting list rather than the size of the catalogue. The index is built from the
+ * table at startup and follows every committed {@link SweetChangedEvent}.
+ */
+@Component
+public class SweetSearchIndex implements SmartInitializingSingleton {
+
+    private static final Logger log = LoggerFactory.getLogger(SweetSearchIndex.class);
+    private static final int GRAM = 3;
+
+    private record Doc(String name, String category, Double price) {}
+
+    private final SweetRepository repo;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Doc> docs = new HashMap<>();
+    private final Map<String, Set<Long>> trigrams = new HashMap<>();
+    private final Map<String, Set<Long>> categories = new HashMap<>();
+    private final NavigableMap<Double, Set<Long>> prices = new TreeMap<>();
+
+    @Value("${app.searchBackend:memory}")
+    private SearchBackend backend = SearchBackend.MEMORY;
+
+    private volatile boolean built;
+
+    public SweetSearchIndex(SweetRepository repo) {
+        this.repo = repo;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if (backend == SearchBackend.MEMORY) {
+            List<Sweet> all = repo.findAll();
+            rebuild(all.stream().map(SweetMapper::toDto).toList());
+            log.info("Search index built for {} sweets", all.size());
+        }
+    }
+
+    public boolean isActive() {
+        return backend == SearchBackend.MEMORY && built;
+    }
+
+    public void rebuild(Collection<SweetDto> sweets) {
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            trigrams.clear();
+            categories.clear();
+            prices.clear();
+            sweets.forEach(this::add);
+            built = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Order(0) // ahead of CatalogueVersion
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSweetChanged(SweetChangedEvent event) {
+        if (!built) {
+            return;
+        }
+        switch (event.type()) {
+            case CREATED, UPDATED -> upsert(event.current());
+            case DELETED -> remove(event.sweetId());
+            case STOCK -> { /* no indexed column changed */ }
+        }
+    }
+
+    public void upsert(SweetDto sweet) {
+        lock.writeLock().lock();
+        try {
+            unlink(sweet.getId());
+            add(sweet);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            unlink(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the sweets matching every criterion of {@code query}, ascending. Sort and limit
+     * are left to the caller.
+     */
+    public List<Long> search(CatalogueQuery query) {
+        String name = query.name();
+        lock.readLock().lock();
+        try {
+            List<Set<Long>> postings = new ArrayList<>();
+            if (name != null && name.length() >= GRAM) {
+                for (String gram : grams(name)) {
+                    Set<Long> posting = trigrams.get(gram);
+                    if (posting == null) {
+                        return List.of();
+                    }
+                    postings.add(posting);
+                }
+            }
+            if (query.category() != null) {
+                postings.add(categories.getOrDefault(query.category(), Set.of()));
+            }
+            if (query.minPrice() != null || query.maxPrice() != null) {
+                postings.add(priceRange(query.minPrice(), query.maxPrice()));
+            }
+            Collection<Long> candidates = postings.isEmpty() ? docs.keySet() : intersect(postings);
+            List<Long> ids = new ArrayList<>();
+            for (Long id : candidates) {
+                if (name == null || docs.get(id).name().contains(name)) {
+                    ids.add(id);
+                }
+            }
+            Collections.sort(ids);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> searchByName(String name) {
+        return search(CatalogueQuery.byName(name));
+    }
+
+    public List<Long> searchByCategory(String category) {
+        return search(CatalogueQuery.byCategory(category));
+    }
+
+    public List<Long> searchByPriceRange(Double min, Double max) {
+        return search(CatalogueQuery.byPrice(min, max));
+    }
+
+    private Set<Long> priceRange(Double min, Double max) {
+        if (min != null && max != null && min > max) {
+            return Set.of();
+        }
+        NavigableMap<Double, Set<Long>> range = prices;
+        if (min != null) {
+            range = range.tailMap(min, true);
+        }
+        if (max != null) {
+            range = range.headMap(max, true);
+        }
+        Set<Long> ids = new HashSet<>();
+        range.values().forEach(ids::addAll);
+        return ids;
+    }
+
+    private static Collection<Long> intersect(List<Set<Long>> postings) {
+        postings.sort(Comparator.comparingInt(Set::size));
+        List<Long> candidates = new ArrayList<>();
+        for (Long id : postings.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < postings.size() && inAll; i++) {
+                inAll = postings.get(i).contains(id);
+            }
+            if (inAll) {
+                candidates.add(id);
+            }
+        }
+        return candidates;
+    }
+
+    private void add(SweetDto sweet) {
+        String name = sweet.getName() == null ? "" : sweet.getName().toLowerCase(Locale.ROOT);
+        String category = sweet.getCategory() == null ? null : sweet.getCategory().toLowerCase(Locale.ROOT);
+        Long id = sweet.getId();
+        docs.put(id, new Doc(name, category, sweet.getPrice()));
+        for (String gram : grams(name)) {
+            trigrams.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+        }
+        if (category != null) {
+            categories.computeIfAbsent(category, k -> new HashSet<>()).add(id);
+        }
+        if (sweet.getPrice() != null) {
+            prices.computeIfAbsent(sweet.getPrice(), k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void unlink(Long id) {
+        Doc doc = docs.remove(id);
+        if (doc == null) {
+            return;
+        }
+        for (String gram : grams(doc.name())) {
+            removePosting(trigrams, gram, id);
+        }
+        if (doc.category() != null) {
+            removePosting(categories, doc.category(), id);
+        }
+        if (doc.price() != null) {
+            removePosting(prices, doc.price(), id);
+        }
+    }
+
+    private static <K> void removePosting(Map<K, Set<Long>> index, K key, Long id) {
+        Set<Long> posting = index.get(key);
+        if (posting != null && posting.remove(id) && posting.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
@@ -1,67 +1,514 @@
 package com.example.sweetshop.service;
 
+import com.example.sweetshop.dto.CheckoutItem;
+import com.example.sweetshop.dto.CheckoutLineResult;
+import com.example.sweetshop.dto.CheckoutResponse;
 import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.entity.StockMovement;
 import com.example.sweetshop.entity.Sweet;
 import com.example.sweetshop.exception.InsufficientStockException;
 import com.example.sweetshop.exception.SweetNotFoundException;
+import com.example.sweetshop.exception.SweetVersionMismatchException;
 import com.example.sweetshop.mapper.SweetMapper;
+import com.example.sweetshop.repository.StockMovementRepository;
 import com.example.sweetshop.repository.SweetRepository;
+import com.example.sweetshop.repository.SweetSpecifications;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
 
 @Service
+@Timed("sweet.service")
 public class SweetService {
     private final SweetRepository repo;
+    private final StockLedger ledger;
+    private final CatalogueCache cache;
+    private final SweetSearchIndex index;
+    private final PurchaseJournal journal;
+    private final StockMovementRepository movements;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher events;
 
-    public SweetService(SweetRepository repo) {
+    private static final Set<String> SORTABLE = Set.of("id", "name", "category", "price", "quantity");
+    private static final int MAX_ID_LIST = 1000;
+
+    @Value("${app.purchaseMode:conditional}")
+    private PurchaseMode purchaseMode = PurchaseMode.CONDITIONAL;
+
+    @Value("${app.searchBackend:memory}")
+    private SearchBackend searchBackend = SearchBackend.MEMORY;
+
+    @Value("${app.maxPageSize:200}")
+    private int maxPageSize = 200;
+
+    @Value("${app.streamFetchSize:500}")
+    private int streamFetchSize = 500;
+
+    @Value("${app.updateAttempts:3}")
+    private int updateAttempts = 3;
+
+    public SweetService(SweetRepository repo, StockLedger ledger, CatalogueCache cache, SweetSearchIndex index,
+                        PurchaseJournal journal, StockMovementRepository movements,
+                        TransactionTemplate transactionTemplate, ApplicationEventPublisher events) {
         this.repo = repo;
+        this.ledger = ledger;
+        this.cache = cache;
+        this.index = index;
+        this.journal = journal;
+        this.movements = movements;
+        this.transactionTemplate = transactionTemplate;
+        this.events = events;
     }
 
+    @Transactional
     public Sweet addSweet(SweetDto dto) {
         Sweet s = new Sweet();
         s.setName(dto.getName());
         s.setCategory(dto.getCategory());
         s.setPrice(dto.getPrice());
         s.setQuantity(dto.getQuantity());
-        return repo.save(s);
+        Sweet saved = repo.save(s);
+        if (ledgerBacked()) {
+            ledger.put(saved.getId(), saved.getQuantity());
+        }
+        if (saved.getQuantity() != null && saved.getQuantity() != 0) {
+            // the column was written directly, so the history goes straight to the table in every mode
+            movements.record(List.of(StockMovement.adjustment(saved.getId(), saved.getQuantity())));
+        }
+        return publish(SweetChangedEvent.Type.CREATED, saved);
     }
 
-    public List<Sweet> listAll() { return repo.findAll(); }
+    public List<Sweet> listAll() { return cache.get(CatalogueQuery.all(), repo::findAll); }
 
-    public List<Sweet> searchByName(String name) { return repo.findByNameContainingIgnoreCase(name); }
+    public List<Sweet> searchByName(String name) {
+        return search(CatalogueQuery.byName(name));
+    }
 
-    public List<Sweet> searchByCategory(String category) { return repo.findByCategoryIgnoreCase(category); }
+    public List<Sweet> searchByCategory(String category) {
+        return search(CatalogueQuery.byCategory(category));
+    }
 
-    public List<Sweet> searchByPriceRange(Double min, Double max) { return repo.findByPriceBetween(min, max); }
+    public List<Sweet> searchByPriceRange(Double min, Double max) {
+        return search(CatalogueQuery.byPrice(min, max));
+    }
+
+    /**
+     * Sweets matching every criterion of {@code query}, ordered and limited by the database.
+     * Ties in the requested sort are broken by id so results are stable. With the fulltext
+     * backend, name searches without an explicit sort come back by relevance instead, and
+     * bypass {@link CatalogueCache}.
+     */
+    public List<Sweet> search(CatalogueQuery query) {
+        CatalogueQuery checked = checked(query);
+        if (searchBackend == SearchBackend.FULLTEXT && checked.name() != null && checked.isSortedById()) {
+            // not cached: fuzzy hits can't be told apart from misses when a sweet changes
+            int limit = checked.limit() == null ? maxPageSize : checked.limit();
+            return repo.searchRanked(checked.name(), checked.category(), checked.minPrice(), checked.maxPrice(), limit);
+        }
+        return cache.get(checked, () -> find(checked, null, checked.limit()));
+    }
+
+    /**
+     * One page of the catalogue in id order, starting after {@code afterId}. Fetches one row
+     * beyond {@code size} so the caller can tell whether another page exists.
+     */
+    public List<Sweet> listPage(Long afterId, int size) {
+        return searchPage(CatalogueQuery.all(), afterId, size);
+    }
+
+    public List<Sweet> searchPage(CatalogueQuery query, Long afterId, int size) {
+        return find(checked(query.withSort(Sort.by("id"))), afterId, pageSize(size) + 1);
+    }
+
+    public int pageSize(int requested) {
+        if (requested <= 0) {
+            throw new IllegalArgumentException("Page size must be greater than zero");
+        }
+        return Math.min(requested, maxPageSize);
+    }
+
+    /** Feeds the whole catalogue to {@code action} row by row without materialising it. */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Sweet> action) {
+        repo.forEachSweet(streamFetchSize, action);
+    }
+
+    public Sweet getSweet(Long id) {
+        Sweet s = repo.findById(id).orElseThrow(() -> new SweetNotFoundException(id));
+        return ledgerBacked() ? withQuantity(s, ledger.available(id)) : s;
+    }
 
     public Sweet updateSweet(Long id, SweetDto dto) {
-        Sweet s = repo.findById(id).orElseThrow(() -> new  SweetNotFoundException(id));
-        SweetMapper.updateEntityFromDto(s,dto);
-        return repo.save(s);
+        return updateSweet(id, dto, null);
+    }
+
+    /** Replaces every field, stock included. */
+    public Sweet updateSweet(Long id, SweetDto dto, Long expectedVersion) {
+        return edit(id, expectedVersion, s -> {
+            if (ledgerBacked()) {
+                // the column is owned by the ledger; leave it untouched so @DynamicUpdate skips it
+                Integer stored = s.getQuantity();
+                SweetMapper.updateEntityFromDto(s, dto);
+                s.setQuantity(stored);
+                Sweet saved = repo.saveAndFlush(s);
+                int quantity = dto.getQuantity() == null ? ledger.available(id) : setLedgerStock(id, dto.getQuantity());
+                return withQuantity(saved, quantity);
+            }
+            int before = s.getQuantity() == null ? 0 : s.getQuantity();
+            SweetMapper.updateEntityFromDto(s,dto);
+            int after = s.getQuantity() == null ? 0 : s.getQuantity();
+            Sweet saved = repo.saveAndFlush(s);
+            if (after != before) {
+                movements.record(List.of(StockMovement.adjustment(id, after - before)));
+            }
+            return saved;
+        });
+    }
+
+    /**
+     * Changes only the fields present in {@code dto}; stock is left to purchases and restocks.
+     * Without {@code expectedVersion} the change is one targeted update, so concurrent purchases
+     * never make it conflict.
+     */
+    public Sweet patchSweet(Long id, SweetDto dto, Long expectedVersion) {
+        if (dto.getQuantity() != null) {
+            throw new IllegalArgumentException("Quantity cannot be patched; use restock or a full update");
+        }
+        if (expectedVersion == null) {
+            return transactionTemplate.execute(status -> {
+                Sweet saved = repo.patchDetails(id, dto.getName(), dto.getCategory(), dto.getPrice())
+                        .orElseThrow(() -> new SweetNotFoundException(id));
+                return publish(SweetChangedEvent.Type.UPDATED,
+                        ledgerBacked() ? withQuantity(saved, ledger.available(id)) : saved);
+            });
+        }
+        return edit(id, expectedVersion, s -> {
+            SweetMapper.patchEntityFromDto(s, dto);
+            Sweet saved = repo.saveAndFlush(s);
+            return ledgerBacked() ? withQuantity(saved, ledger.available(id)) : saved;
+        });
     }
 
     public void deleteSweet(Long id) {
         Sweet s = repo.findById(id).orElseThrow(() -> new SweetNotFoundException(id));
         repo.deleteById(id);
+        if (ledgerBacked()) {
+            ledger.remove(id);
+        }
+        events.publishEvent(new SweetChangedEvent(SweetChangedEvent.Type.DELETED, id, null));
     }
 
-    @Transactional
+    /**
+     * Takes {@code qty} units of a sweet. The conditional update runs in its own transaction;
+     * the ledger path touches neither the database nor a transaction.
+     */
     public Sweet purchase(Long id, int qty) {
         if(qty <= 0){
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
-        Sweet s = repo.findById(id).orElseThrow(() -> new SweetNotFoundException(id));
-        if (s.getQuantity() < qty) throw new InsufficientStockException(s.getName(),s.getQuantity(),qty);
-        s.setQuantity(s.getQuantity() - qty);
-        return s;
+        if (ledgerBacked()) {
+            return publish(SweetChangedEvent.Type.STOCK, purchaseFromLedger(id, qty));
+        }
+        return transactionTemplate.execute(status -> {
+            Sweet purchased = repo.decrementStock(id, qty).orElseThrow(() -> purchaseRejected(id, qty));
+            movements.record(List.of(StockMovement.purchase(id, qty)));
+            return publish(SweetChangedEvent.Type.STOCK, purchased);
+        });
+    }
+
+    /**
+     * Buys every line of a cart or none of them. Lines for the same sweet are merged and all
+     * lines are taken in ascending id order, so concurrent carts cannot deadlock on each other.
+     * Only the batch path runs in a transaction; the ledger path never touches the database.
+     */
+    public CheckoutResponse checkout(List<CheckoutItem> items) {
+        SortedMap<Long, Integer> wanted = new TreeMap<>();
+        for (CheckoutItem item : items) {
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero");
+            }
+            wanted.merge(item.getSweetId(), item.getQuantity(), Integer::sum);
+        }
+        if (ledgerBacked()) {
+            return publishCheckout(checkoutFromLedger(wanted));
+        }
+        return transactionTemplate.execute(status -> {
+            CheckoutResponse response = checkoutWithBatch(wanted);
+            if (!response.isCompleted()) {
+                status.setRollbackOnly();
+            }
+            return publishCheckout(response);
+        });
     }
 
     @Transactional
     public Sweet restock(Long id, int qty) {
-        Sweet s = repo.findById(id).orElseThrow(() -> new RuntimeException("Sweet not found"));
-        s.setQuantity(s.getQuantity() + qty);
+        if(qty <= 0){
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        if (ledgerBacked()) {
+            int remaining = ledger.add(id, qty);
+            try {
+                recordDelta(StockMovement.restock(id, qty));
+            } catch (RuntimeException ex) {
+                ledger.add(id, -qty);
+                throw ex;
+            }
+            Sweet s = repo.findById(id).orElseThrow(() -> new SweetNotFoundException(id));
+            return publish(SweetChangedEvent.Type.STOCK, withQuantity(s, remaining));
+        }
+        Sweet restocked = repo.incrementStock(id, qty).orElseThrow(() -> new SweetNotFoundException(id));
+        movements.record(List.of(StockMovement.restock(id, qty)));
+        return publish(SweetChangedEvent.Type.STOCK, restocked);
+    }
+
+    /**
+     * Runs an admin edit under the optimistic version check, one transaction per attempt. With
+     * {@code expectedVersion} (from If-Match) the edit applies to that version only and fails
+     * otherwise; without it, a concurrent change makes the edit start over on a fresh copy, at
+     * most {@code app.updateAttempts} times.
+     */
+    private Sweet edit(Long id, Long expectedVersion, UnaryOperator<Sweet> change) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> {
+                    Sweet s = repo.findById(id).orElseThrow(() -> new SweetNotFoundException(id));
+                    if (expectedVersion != null && !expectedVersion.equals(s.getVersion())) {
+                        throw new SweetVersionMismatchException(id, expectedVersion);
+                    }
+                    return publish(SweetChangedEvent.Type.UPDATED, change.apply(s));
+                });
+            } catch (OptimisticLockingFailureException ex) {
+                if (expectedVersion != null) {
+                    throw new SweetVersionMismatchException(id, expectedVersion);
+                }
+                if (attempt >= updateAttempts) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    // cold path only: tells a missing sweet apart from one that ran out
+    private RuntimeException purchaseRejected(Long id, int qty) {
+        return repo.findById(id)
+                .<RuntimeException>map(s -> new InsufficientStockException(s.getName(), s.getQuantity(), qty))
+                .orElseGet(() -> new SweetNotFoundException(id));
+    }
+
+    private Sweet purchaseFromLedger(Long id, int qty) {
+        int remaining = ledger.tryReserve(id, qty);
+        if (remaining < 0) {
+            throw new InsufficientStockException(ledgerDetails(id).getName(), ledger.available(id), qty);
+        }
+        try {
+            recordDelta(StockMovement.purchase(id, qty));
+        } catch (RuntimeException ex) {
+            ledger.add(id, qty);
+            throw ex;
+        }
+        Sweet purchased = SweetMapper.toEntity(ledgerDetails(id));
+        purchased.setQuantity(remaining);
+        return purchased;
+    }
+
+    // read from the table once per sweet, then kept current by the ledger's change listener
+    private SweetDto ledgerDetails(Long id) {
+        return ledger.details(id, k -> SweetMapper.toDto(repo.findById(k).orElseThrow(() -> new SweetNotFoundException(k))));
+    }
+
+    private CheckoutResponse checkoutWithBatch(SortedMap<Long, Integer> wanted) {
+        int[] counts = repo.decrementStockBatch(wanted);
+        Map<Long, Sweet> rows = repo.findAllById(wanted.keySet()).stream()
+                .collect(Collectors.toMap(Sweet::getId, Function.identity()));
+        boolean completed = true;
+        for (int count : counts) {
+            completed &= count > 0;
+        }
+        List<CheckoutLineResult> lines = new ArrayList<>(wanted.size());
+        int i = 0;
+        for (Map.Entry<Long, Integer> line : wanted.entrySet()) {
+            Sweet row = rows.get(line.getKey());
+            int qty = line.getValue();
+            CheckoutLineResult.Status status;
+            Integer remaining = row == null ? null : row.getQuantity();
+            if (row == null) {
+                status = CheckoutLineResult.Status.NOT_FOUND;
+            } else if (counts[i] == 0) {
+                status = CheckoutLineResult.Status.INSUFFICIENT_STOCK;
+            } else if (completed) {
+                status = CheckoutLineResult.Status.PURCHASED;
+            } else {
+                status = CheckoutLineResult.Status.ROLLED_BACK;
+                remaining = row.getQuantity() + qty;
+            }
+            lines.add(new CheckoutLineResult(line.getKey(), qty, status, remaining));
+            i++;
+        }
+        if (completed) {
+            movements.record(wanted.entrySet().stream()
+                    .map(line -> StockMovement.purchase(line.getKey(), line.getValue()))
+                    .toList());
+        }
+        return new CheckoutResponse(completed, lines);
+    }
+
+    private CheckoutResponse checkoutFromLedger(SortedMap<Long, Integer> wanted) {
+        List<CheckoutLineResult> lines = new ArrayList<>(wanted.size());
+        boolean completed = true;
+        for (Map.Entry<Long, Integer> line : wanted.entrySet()) {
+            CheckoutLineResult result = reserveFromLedger(line.getKey(), line.getValue());
+            completed &= result.getStatus() == CheckoutLineResult.Status.PURCHASED;
+            lines.add(result);
+        }
+        if (completed) {
+            List<StockMovement> purchases = lines.stream()
+                    .map(line -> StockMovement.purchase(line.getSweetId(), line.getQuantity()))
+                    .toList();
+            try {
+                recordDeltas(purchases);
+                return new CheckoutResponse(true, lines);
+            } catch (RuntimeException ex) {
+                purchases.forEach(m -> ledger.add(m.sweetId(), -m.delta()));
+                throw ex;
+            }
+        }
+        for (CheckoutLineResult line : lines) {
+            if (line.getStatus() == CheckoutLineResult.Status.PURCHASED) {
+                line.setRemaining(ledger.add(line.getSweetId(), line.getQuantity()));
+                line.setStatus(CheckoutLineResult.Status.ROLLED_BACK);
+            }
+        }
+        return new CheckoutResponse(false, lines);
+    }
+
+    private CheckoutLineResult reserveFromLedger(Long id, int qty) {
+        try {
+            int remaining = ledger.tryReserve(id, qty);
+            return remaining < 0
+                    ? new CheckoutLineResult(id, qty, CheckoutLineResult.Status.INSUFFICIENT_STOCK, ledger.available(id))
+                    : new CheckoutLineResult(id, qty, CheckoutLineResult.Status.PURCHASED, remaining);
+        } catch (SweetNotFoundException ex) {
+            return new CheckoutLineResult(id, qty, CheckoutLineResult.Status.NOT_FOUND, null);
+        }
+    }
+
+    private int setLedgerStock(Long id, int quantity) {
+        int previous = ledger.set(id, quantity);
+        if (quantity != previous) {
+            recordDelta(StockMovement.adjustment(id, quantity - previous));
+        }
+        return quantity;
+    }
+
+    private boolean ledgerBacked() {
+        return purchaseMode == PurchaseMode.LEDGER || purchaseMode == PurchaseMode.JOURNAL;
+    }
+
+    /**
+     * Hands a ledger change over for persistence, history included; in journal mode it is
+     * durable on return.
+     */
+    private void recordDelta(StockMovement movement) {
+        if (purchaseMode == PurchaseMode.JOURNAL) {
+            journal.append(movement);
+        } else {
+            ledger.recordPending(movement);
+        }
+    }
+
+    private void recordDeltas(List<StockMovement> changes) {
+        if (purchaseMode == PurchaseMode.JOURNAL) {
+            journal.appendAll(changes);
+        } else {
+            changes.forEach(ledger::recordPending);
+        }
+    }
+
+    private CatalogueQuery checked(CatalogueQuery query) {
+        for (Sort.Order order : query.sort()) {
+            if (!SORTABLE.contains(order.getProperty())) {
+                throw new IllegalArgumentException("Cannot sort by " + order.getProperty());
+            }
+        }
+        if (query.limit() == null) {
+            return query;
+        }
+        return new CatalogueQuery(query.name(), query.category(), query.minPrice(), query.maxPrice(),
+                query.sort(), pageSize(query.limit()));
+    }
+
+    private List<Sweet> find(CatalogueQuery query, Long afterId, Integer limit) {
+        List<Specification<Sweet>> specs = new ArrayList<>();
+        if (index.isActive() && !query.isUnfiltered()) {
+            // let the in-memory index narrow the rows; huge id lists are cheaper as plain predicates
+            List<Long> ids = index.search(query);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            if (ids.size() <= MAX_ID_LIST) {
+                specs.add(SweetSpecifications.idIn(ids));
+            } else {
+                specs.addAll(criteria(query));
+            }
+        } else {
+            specs.addAll(criteria(query));
+        }
+        specs.add(SweetSpecifications.idAfter(afterId));
+        specs.removeIf(Objects::isNull);
+
+        Sort sort = query.sort().getOrderFor("id") == null ? query.sort().and(Sort.by("id")) : query.sort();
+        return repo.findBy(Specification.allOf(specs), q -> limit == null
+                ? q.sortBy(sort).all()
+                : q.sortBy(sort).limit(limit).all());
+    }
+
+    private static List<Specification<Sweet>> criteria(CatalogueQuery query) {
+        return Arrays.asList(
+                SweetSpecifications.nameContains(query.name()),
+                SweetSpecifications.categoryIs(query.category()),
+                SweetSpecifications.priceAtLeast(query.minPrice()),
+                SweetSpecifications.priceAtMost(query.maxPrice()));
+    }
+
+    private CheckoutResponse publishCheckout(CheckoutResponse response) {
+        if (response.isCompleted()) {
+            for (CheckoutLineResult line : response.getLines()) {
+                events.publishEvent(new SweetChangedEvent(SweetChangedEvent.Type.STOCK, line.getSweetId(), null));
+            }
+        }
+        return response;
+    }
+
+    private Sweet publish(SweetChangedEvent.Type type, Sweet s) {
+        events.publishEvent(new SweetChangedEvent(type, s.getId(), SweetMapper.toDto(s)));
         return s;
     }
+
+    // detached copy, so reporting the ledger's figure never dirties the managed entity
+    private static Sweet withQuantity(Sweet s, int quantity) {
+        Sweet copy = SweetMapper.toEntity(SweetMapper.toDto(s));
+        copy.setQuantity(quantity);
+        copy.setVersion(s.getVersion());
+        return copy;
+    }
 }
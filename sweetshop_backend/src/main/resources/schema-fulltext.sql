@@ -0,0 +1,7 @@
+-- Full-text and trigram search, applied by FullTextSchemaInitializer only with
+-- app.searchBackend=fulltext. Needs a role that may create the pg_trgm extension.
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+ALTER TABLE sweet ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(category, ''))) STORED;
+CREATE INDEX IF NOT EXISTS idx_sweet_search_vector ON sweet USING gin (search_vector);
+CREATE INDEX IF NOT EXISTS idx_sweet_name_trgm ON sweet USING gin (lower(name) gin_trgm_ops);
@@ -0,0 +1,38 @@
+-- Runs after Hibernate has created the tables (spring.jpa.defer-datasource-initialization).
+CREATE INDEX IF NOT EXISTS idx_sweet_lower_category ON sweet (lower(category));
+CREATE INDEX IF NOT EXISTS idx_sweet_price ON sweet (price);
+
+-- Purchase journal (app.purchaseMode=journal): highest journal sequence already applied to sweet.quantity.
+CREATE TABLE IF NOT EXISTS stock_journal_checkpoint (
+    id  smallint PRIMARY KEY,
+    seq bigint   NOT NULL
+);
+INSERT INTO stock_journal_checkpoint (id, seq) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
+-- Stock history, one partition per month (created ahead of time by StockMovementPartitions).
+-- The default partition only catches rows outside the prepared range.
+CREATE TABLE IF NOT EXISTS stock_movement (
+    id          bigserial,
+    occurred_at timestamptz      NOT NULL,
+    sweet_id    bigint           NOT NULL,
+    kind        varchar(16)      NOT NULL,
+    delta       integer          NOT NULL,
+    unit_price  double precision,
+    PRIMARY KEY (id, occurred_at)
+) PARTITION BY RANGE (occurred_at);
+CREATE TABLE IF NOT EXISTS stock_movement_default PARTITION OF stock_movement DEFAULT;
+-- keyset for the history pages; replaces the earlier (sweet_id, occurred_at) index
+DROP INDEX IF EXISTS idx_stock_movement_sweet;
+CREATE INDEX IF NOT EXISTS idx_stock_movement_sweet_keyset ON stock_movement (sweet_id, occurred_at DESC, id DESC);
+CREATE INDEX IF NOT EXISTS idx_stock_movement_time ON stock_movement USING brin (occurred_at);
+
+-- Units and revenue sold per UTC day and sweet, upserted in the same transaction as the movements.
+CREATE TABLE IF NOT EXISTS sales_daily (
+    day      date             NOT NULL,
+    sweet_id bigint           NOT NULL,
+    category varchar(255),
+    units    bigint           NOT NULL,
+    revenue  double precision NOT NULL,
+    PRIMARY KEY (day, sweet_id)
+);
+CREATE INDEX IF NOT EXISTS idx_sales_daily_category ON sales_daily (day, category) INCLUDE (units, revenue);
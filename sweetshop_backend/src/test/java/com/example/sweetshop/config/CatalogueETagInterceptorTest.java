@@ -0,0 +1,81 @@
+package com.example.sweetshop.config;
+
+import com.example.sweetshop.service.CatalogueVersion;
+import com.example.sweetshop.service.SweetChangedEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogueETagInterceptorTest {
+
+    private final CatalogueVersion version = new CatalogueVersion();
+    private final CatalogueETagInterceptor interceptor = new CatalogueETagInterceptor(version);
+
+    @Test
+    void firstReadShouldGetAnETagAndReachTheHandler() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(get(null), response, null));
+        assertEquals(version.etag("json"), response.getHeader(HttpHeaders.ETAG));
+        assertEquals(HttpHeaders.ACCEPT, response.getHeader(HttpHeaders.VARY));
+        assertEquals("private, no-cache", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    void matchingTagShouldBeAnsweredWithNotModified() {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(interceptor.preHandle(get(version.etag("json")), response, null));
+        assertEquals(304, response.getStatus());
+    }
+
+    @Test
+    void committedChangeShouldInvalidateTheTag() {
+        String before = version.etag("json");
+        version.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.STOCK, 1L, null));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(get(before), response, null));
+        assertNotEquals(before, response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void ndjsonShouldNotShareATagWithJson() {
+        MockHttpServletRequest request = get(version.etag("json"));
+        request.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_NDJSON_VALUE);
+
+        assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), null));
+    }
+
+    @Test
+    void binaryFormatsShouldGetTheirOwnTags() {
+        MockHttpServletRequest request = get(version.etag("json"));
+        request.addHeader(HttpHeaders.ACCEPT, MediaType.APPLICATION_CBOR_VALUE);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, null));
+        assertEquals(version.etag("cbor"), response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    void writesShouldPassThroughUntouched() {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/sweets");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, version.etag("json"));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(request, response, null));
+        assertNull(response.getHeader(HttpHeaders.ETAG));
+    }
+
+    private static MockHttpServletRequest get(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sweets");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return request;
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.sweetshop.controller;
 
 import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.dto.SweetPage;
 import com.example.sweetshop.entity.Sweet;
 import com.example.sweetshop.mapper.SweetMapper;
 import com.example.sweetshop.service.SweetService;
@@ -48,6 +49,38 @@ class SweetControllerTest {
         assertEquals(10, dto.getQuantity());
     }
 
+    @Test
+    void listPageShouldReturnCursorWhenMoreRowsExist() {
+        Sweet first = new Sweet();
+        first.setId(3L); first.setName("Ladoo");
+        Sweet second = new Sweet();
+        second.setId(5L); second.setName("Barfi");
+        Sweet extra = new Sweet();
+        extra.setId(8L); extra.setName("Jalebi");
+
+        when(service.pageSize(2)).thenReturn(2);
+        when(service.listPage(null, 2)).thenReturn(List.of(first, second, extra));
+
+        SweetPage page = controller.listPage(null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertEquals(5L, page.getNextCursor());
+    }
+
+    @Test
+    void weakIfMatchShouldNeverMatch() {
+        Sweet s = new Sweet();
+        s.setId(1L); s.setName("Barfi"); s.setVersion(4L);
+        SweetDto dto = new SweetDto(null, "Barfi", "Milk", 30.0, 5);
+        when(service.updateSweet(eq(1L), any(SweetDto.class), anyLong())).thenReturn(s);
+
+        controller.update(1L, dto, "\"4\"");
+        controller.update(1L, dto, "W/\"4\"");
+
+        verify(service).updateSweet(eq(1L), any(SweetDto.class), eq(4L));
+        verify(service).updateSweet(eq(1L), any(SweetDto.class), eq(-1L));
+    }
+
     @Test
     void addSweetShouldReturnDto() {
         Sweet s = new Sweet();
@@ -0,0 +1,80 @@
+package com.example.sweetshop.load;
+
+import com.example.sweetshop.TestcontainersConfiguration;
+import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.repository.SweetRepository;
+import com.example.sweetshop.repository.SweetSpecifications;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Median latency of the ranked fulltext search against the substring {@code LIKE} path on a
+ * large generated catalogue. Tagged {@code load}; the figures go to stdout and
+ * {@code target/load-report-fulltext.txt}. Tune it with {@code -Dload.rows} and {@code -Dload.runs}.
+ */
+@Tag("load")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.searchBackend=fulltext")
+class FullTextSearchLoadTest {
+
+    static final int ROWS = Integer.getInteger("load.rows", 120_000);
+    static final int RUNS = Integer.getInteger("load.runs", 30);
+
+    @Autowired SweetRepository repo;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void rankedSearchLatencyComparedWithLikePath() throws Exception {
+        jdbcTemplate.update("""
+                INSERT INTO sweet (name, category, price, quantity)
+                SELECT (ARRAY['Ladoo', 'Barfi', 'Jalebi', 'Peda', 'Rasgulla', 'Halwa', 'Kaju Katli', 'Soan Papdi'])[1 + g % 8]
+                           || ' ' || g,
+                       (ARRAY['Traditional', 'Milk', 'Dry Fruit', 'Festive'])[1 + g % 4],
+                       10 + g % 500,
+                       g % 100
+                FROM generate_series(1, ?) g
+                """, ROWS);
+        jdbcTemplate.execute("ANALYZE sweet");
+
+        Sort byId = Sort.by("id");
+        double ranked = medianMillis(() -> repo.searchRanked("rasgulla", null, null, null, 20));
+        double like = medianMillis(() -> repo.findBy(SweetSpecifications.nameContains("rasgulla"),
+                q -> q.sortBy(byId).all()));
+        double rankedExact = medianMillis(() -> repo.searchRanked("rasgulla 4244", null, null, null, 20));
+        double likeExact = medianMillis(() -> repo.findBy(SweetSpecifications.nameContains("rasgulla 4244"),
+                q -> q.sortBy(byId).all()));
+
+        String text = String.format("fulltext search: rows=%d median of %d runs%n"
+                        + "  'rasgulla'       ranked+limit 20 %8.2f ms   LIKE (all matches) %8.2f ms%n"
+                        + "  'rasgulla 4244'  ranked+limit 20 %8.2f ms   LIKE               %8.2f ms%n",
+                ROWS, RUNS, ranked, like, rankedExact, likeExact);
+        System.out.print(text);
+        Files.createDirectories(Path.of("target"));
+        Files.writeString(Path.of("target", "load-report-fulltext.txt"), text);
+    }
+
+    private static double medianMillis(Supplier<List<Sweet>> query) {
+        for (int i = 0; i < 5; i++) {
+            query.get();
+        }
+        double[] samples = new double[RUNS];
+        for (int i = 0; i < RUNS; i++) {
+            long begin = System.nanoTime();
+            query.get();
+            samples[i] = (System.nanoTime() - begin) / 1_000_000.0;
+        }
+        Arrays.sort(samples);
+        return samples[RUNS / 2];
+    }
+}
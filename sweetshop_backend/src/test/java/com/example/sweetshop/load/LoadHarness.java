@@ -0,0 +1,159 @@
+package com.example.sweetshop.load;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Runs a step function from a fixed number of workers until a deadline and collects per-operation
+ * latencies. Each worker gets its own seeded {@link Random} and {@link Recorder}, so nothing is
+ * shared on the measured path.
+ */
+final class LoadHarness {
+
+    interface Step {
+        void run(Random random, Recorder recorder) throws Exception;
+    }
+
+    interface Call {
+        int status() throws Exception;
+    }
+
+    private final int concurrency;
+    private final Duration duration;
+    private final long seed;
+    private final ThreadFactory threadFactory;
+
+    LoadHarness(int concurrency, Duration duration, long seed, ThreadFactory threadFactory) {
+        this.concurrency = concurrency;
+        this.duration = duration;
+        this.seed = seed;
+        this.threadFactory = threadFactory;
+    }
+
+    Report run(Step step) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(concurrency, threadFactory);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Recorder>> futures = new ArrayList<>();
+        for (int w = 0; w < concurrency; w++) {
+            Random random = new Random(seed + w);
+            futures.add(pool.submit(() -> {
+                Recorder recorder = new Recorder();
+                start.await();
+                long deadline = System.nanoTime() + duration.toNanos();
+                while (System.nanoTime() < deadline) {
+                    step.run(random, recorder);
+                }
+                return recorder;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        Recorder total = new Recorder();
+        for (Future<Recorder> f : futures) {
+            total.merge(f.get(duration.toSeconds() + 120, TimeUnit.SECONDS));
+        }
+        long elapsed = System.nanoTime() - begin;
+        pool.shutdown();
+        return new Report(total, elapsed);
+    }
+
+    /** Latency samples in nanoseconds plus status counts, per operation name. */
+    static final class Recorder {
+        private final Map<String, Samples> samples = new TreeMap<>();
+        private final Map<String, Map<Integer, Integer>> statuses = new TreeMap<>();
+
+        int time(String operation, Call call) throws Exception {
+            long begin = System.nanoTime();
+            int status;
+            try {
+                status = call.status();
+            } catch (IOException ex) {
+                status = -1;
+            }
+            samples.computeIfAbsent(operation, k -> new Samples()).add(System.nanoTime() - begin);
+            statuses.computeIfAbsent(operation, k -> new TreeMap<>()).merge(status, 1, Integer::sum);
+            return status;
+        }
+
+        private void merge(Recorder other) {
+            other.samples.forEach((op, s) -> samples.computeIfAbsent(op, k -> new Samples()).addAll(s));
+            other.statuses.forEach((op, counts) ->
+                    counts.forEach((status, n) -> statuses.computeIfAbsent(op, k -> new TreeMap<>()).merge(status, n, Integer::sum)));
+        }
+    }
+
+    record Report(Recorder recorder, long elapsedNanos) {
+
+        long count() {
+            return recorder.samples.values().stream().mapToLong(s -> s.size).sum();
+        }
+
+        double throughput() {
+            return count() * 1e9 / elapsedNanos;
+        }
+
+        /** 5xx responses plus transport failures, which are recorded as status -1. */
+        int serverErrors() {
+            int errors = 0;
+            for (Map<Integer, Integer> counts : recorder.statuses.values()) {
+                for (Map.Entry<Integer, Integer> e : counts.entrySet()) {
+                    if (e.getKey() >= 500 || e.getKey() < 0) {
+                        errors += e.getValue();
+                    }
+                }
+            }
+            return errors;
+        }
+
+        String format(String title) {
+            StringBuilder out = new StringBuilder();
+            out.append(title).append('\n');
+            out.append(String.format("%d requests in %.1f s, %.0f req/s%n", count(), elapsedNanos / 1e9, throughput()));
+            out.append(String.format("%-10s %8s %9s %9s %9s %9s  %s%n",
+                    "operation", "count", "p50 ms", "p99 ms", "p999 ms", "max ms", "statuses"));
+            recorder.samples.forEach((op, s) -> {
+                long[] sorted = s.sorted();
+                out.append(String.format("%-10s %8d %9.2f %9.2f %9.2f %9.2f  %s%n", op, sorted.length,
+                        millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.99)),
+                        millis(percentile(sorted, 0.999)), millis(sorted[sorted.length - 1]),
+                        recorder.statuses.get(op)));
+            });
+            return out.toString();
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            int rank = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(rank, sorted.length - 1))];
+        }
+
+        private static double millis(long nanos) {
+            return nanos / 1e6;
+        }
+    }
+
+    private static final class Samples {
+        private long[] values = new long[1024];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        void addAll(Samples other) {
+            for (int i = 0; i < other.size; i++) {
+                add(other.values[i]);
+            }
+        }
+
+        long[] sorted() {
+            long[] copy = Arrays.copyOf(values, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.example.sweetshop.load;
+
+import com.example.sweetshop.TestcontainersConfiguration;
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.repository.SweetRepository;
+import com.example.sweetshop.service.SweetService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drives login, listing, search and purchase traffic at a running app and reports throughput and
+ * latency percentiles to stdout and {@code target/load-report.txt}. Tagged {@code load}, so it
+ * only runs with {@code mvn -Pload test}; tune it with {@code -Dload.concurrency},
+ * {@code -Dload.durationSeconds}, {@code -Dload.users}, {@code -Dload.hotStock} and {@code -Dload.seed}.
+ */
+@Tag("load")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class MixedTrafficLoadTest {
+
+    static final int CONCURRENCY = Integer.getInteger("load.concurrency", 32);
+    static final int DURATION_SECONDS = Integer.getInteger("load.durationSeconds", 20);
+    static final int USERS = Integer.getInteger("load.users", 16);
+    static final int HOT_STOCK = Integer.getInteger("load.hotStock", 2000);
+    static final long SEED = Long.getLong("load.seed", 42L);
+    static final int CATALOGUE = 200;
+    static final int HOT_SWEETS = 5;
+    static final String PASSWORD = "load-test-password";
+    static final String[] TERMS = {"ladoo", "barfi", "jalebi", "peda", "halwa"};
+    static final String[] CATEGORIES = {"Traditional", "Milk", "Festive"};
+
+    @LocalServerPort int port;
+    @Autowired SweetRepository repo;
+    @Autowired SweetService service;
+    @Autowired ObjectMapper json;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void mixedTrafficShouldKeepStockConsistent() throws Exception {
+        List<Long> hot = seedCatalogue();
+        List<String> emails = registerUsers();
+        List<String> tokens = new ArrayList<>();
+        for (String email : emails) {
+            tokens.add(login(email));
+        }
+        Map<Long, AtomicInteger> purchased = new ConcurrentHashMap<>();
+        hot.forEach(id -> purchased.put(id, new AtomicInteger()));
+        AtomicInteger unexpected = new AtomicInteger();
+
+        LoadHarness harness = new LoadHarness(CONCURRENCY, Duration.ofSeconds(DURATION_SECONDS), SEED,
+                clientThreads());
+        LoadHarness.Report report = harness.run((random, recorder) -> {
+            String token = tokens.get(random.nextInt(tokens.size()));
+            int roll = random.nextInt(100);
+            if (roll < 5) {
+                String email = emails.get(random.nextInt(emails.size()));
+                recorder.time("login", () -> send(post("/api/auth/login", loginBody(email), null)));
+            } else if (roll < 35) {
+                recorder.time("list", () -> send(get("/api/sweets", token)));
+            } else if (roll < 65) {
+                String query = "name=" + TERMS[random.nextInt(TERMS.length)]
+                        + "&category=" + CATEGORIES[random.nextInt(CATEGORIES.length)]
+                        + "&maxPrice=" + (100 + random.nextInt(400)) + "&sort=price,desc&limit=20";
+                recorder.time("search", () -> send(get("/api/sweets/search?" + query, token)));
+            } else {
+                Long id = hot.get(random.nextInt(hot.size()));
+                int qty = 1 + random.nextInt(3);
+                int status = recorder.time("purchase",
+                        () -> send(post("/api/sweets/" + id + "/purchase?qty=" + qty, "", token)));
+                if (status == 200) {
+                    purchased.get(id).addAndGet(qty);
+                } else if (status != 400) {
+                    unexpected.incrementAndGet();
+                }
+            }
+        });
+
+        String text = report.format(String.format("mixed traffic (%s): concurrency=%d duration=%ds users=%d seed=%d",
+                mode(), CONCURRENCY, DURATION_SECONDS, USERS, SEED));
+        System.out.print(text);
+        Files.createDirectories(Path.of("target"));
+        Files.writeString(Path.of("target", reportFile()), text);
+
+        assertEquals(0, report.serverErrors(), "server errors or transport failures");
+        assertEquals(0, unexpected.get(), "purchases answered with something other than 200 or 400");
+        for (Long id : hot) {
+            int expected = HOT_STOCK - purchased.get(id).get();
+            assertTrue(expected >= 0, "more units sold than stocked for sweet " + id);
+            assertEquals(expected, awaitStock(id, expected), "final stock of sweet " + id);
+        }
+    }
+
+    String mode() {
+        return "platform threads";
+    }
+
+    String reportFile() {
+        return "load-report.txt";
+    }
+
+    ThreadFactory clientThreads() {
+        return Executors.defaultThreadFactory();
+    }
+
+    // through the service, so the search index, the stock ledger and the snapshot all see the sweets
+    private List<Long> seedCatalogue() {
+        String run = Long.toString(System.nanoTime(), 36);
+        List<Long> hot = new ArrayList<>();
+        Random random = new Random(SEED);
+        for (int i = 0; i < CATALOGUE; i++) {
+            SweetDto dto = new SweetDto(null, TERMS[i % TERMS.length] + " " + run + " " + i,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], 10 + random.nextInt(490) + 0.5,
+                    i < HOT_SWEETS ? HOT_STOCK : 1_000_000);
+            Long id = service.addSweet(dto).getId();
+            if (i < HOT_SWEETS) {
+                hot.add(id);
+            }
+        }
+        return hot;
+    }
+
+    private List<String> registerUsers() throws Exception {
+        String run = Long.toString(System.nanoTime(), 36);
+        List<String> emails = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            String email = "load-" + run + "-" + i + "@example.com";
+            String body = json.writeValueAsString(Map.of(
+                    "username", "load" + i, "email", email, "password", PASSWORD, "role", "ROLE_USER"));
+            assertEquals(200, send(post("/api/auth/register", body, null)));
+            emails.add(email);
+        }
+        return emails;
+    }
+
+    private String login(String email) throws Exception {
+        HttpResponse<String> response = http.send(post("/api/auth/login", loginBody(email), null),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        return json.readTree(response.body()).get("token").asText();
+    }
+
+    private String loginBody(String email) throws Exception {
+        return json.writeValueAsString(Map.of("email", email, "password", PASSWORD));
+    }
+
+    // the ledger purchase mode writes stock back asynchronously, so give it a moment to settle
+    private int awaitStock(Long id, int expected) throws InterruptedException {
+        int actual = repo.findById(id).orElseThrow().getQuantity();
+        for (int i = 0; i < 50 && actual != expected; i++) {
+            Thread.sleep(100);
+            actual = repo.findById(id).orElseThrow().getQuantity();
+        }
+        return actual;
+    }
+
+    private HttpRequest get(String path, String token) {
+        return request(path, token).GET().build();
+    }
+
+    private HttpRequest post(String path, String body, String token) {
+        return request(path, token)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder request(String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
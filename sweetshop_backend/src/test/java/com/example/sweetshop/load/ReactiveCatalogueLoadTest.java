@@ -0,0 +1,121 @@
+package com.example.sweetshop.load;
+
+import com.example.sweetshop.TestcontainersConfiguration;
+import com.example.sweetshop.config.ReactiveCatalogueServer;
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.security.JwtUtils;
+import com.example.sweetshop.service.SweetService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends the same list and search traffic to the servlet endpoints and to the WebFlux catalogue
+ * at high concurrency and reports both to stdout and {@code target/load-report-reactive.txt}.
+ * Catalogue caching is off and search goes to the database, so both sides do the same queries.
+ * Tune it with {@code -Dload.readConcurrency} and {@code -Dload.durationSeconds}.
+ */
+@Tag("load")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.reactiveCatalogue=true", "app.reactiveCataloguePort=0",
+        "app.catalogueCacheMaxEntries=0", "app.searchBackend=database"})
+class ReactiveCatalogueLoadTest {
+
+    static final int CONCURRENCY = Integer.getInteger("load.readConcurrency", 512);
+    static final int DURATION_SECONDS = Integer.getInteger("load.durationSeconds", 20);
+    static final long SEED = Long.getLong("load.seed", 42L);
+    static final int CATALOGUE = 200;
+    static final String[] TERMS = {"ladoo", "barfi", "jalebi", "peda", "halwa"};
+    static final String[] CATEGORIES = {"Traditional", "Milk", "Festive"};
+
+    @LocalServerPort int servletPort;
+    @Autowired ReactiveCatalogueServer reactive;
+    @Autowired SweetService service;
+    @Autowired JwtUtils jwtUtils;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    @Test
+    void reactiveCatalogueShouldServeTheSameReadsWithoutErrors() throws Exception {
+        seedCatalogue();
+        String token = jwtUtils.generateToken("load-reader@example.com", List.of(new SimpleGrantedAuthority("ROLE_USER")));
+
+        assertEquals(200, send(get(servletPort, "/api/sweets", token)));
+        assertEquals(200, send(get(reactive.port(), "/api/sweets", token)));
+        assertEquals(401, send(get(reactive.port(), "/api/sweets", null)));
+
+        LoadHarness.Report servlet = run(servletPort, token);
+        LoadHarness.Report webflux = run(reactive.port(), token);
+
+        String text = servlet.format(String.format("servlet catalogue: concurrency=%d duration=%ds seed=%d",
+                CONCURRENCY, DURATION_SECONDS, SEED))
+                + '\n'
+                + webflux.format(String.format("reactive catalogue: concurrency=%d duration=%ds seed=%d",
+                CONCURRENCY, DURATION_SECONDS, SEED));
+        System.out.print(text);
+        Files.createDirectories(Path.of("target"));
+        Files.writeString(Path.of("target", "load-report-reactive.txt"), text);
+
+        assertEquals(0, servlet.serverErrors(), "servlet server errors or transport failures");
+        assertEquals(0, webflux.serverErrors(), "reactive server errors or transport failures");
+    }
+
+    private LoadHarness.Report run(int port, String token) throws Exception {
+        LoadHarness harness = new LoadHarness(CONCURRENCY, Duration.ofSeconds(DURATION_SECONDS), SEED,
+                Thread.ofVirtual().name("load-client-", 0).factory());
+        return harness.run((random, recorder) -> {
+            if (random.nextInt(100) < 40) {
+                recorder.time("list", () -> send(get(port, "/api/sweets", token)));
+            } else {
+                String query = "name=" + TERMS[random.nextInt(TERMS.length)]
+                        + "&category=" + CATEGORIES[random.nextInt(CATEGORIES.length)]
+                        + "&maxPrice=" + (100 + random.nextInt(400)) + "&sort=price,desc&limit=20";
+                recorder.time("search", () -> send(get(port, "/api/sweets/search?" + query, token)));
+            }
+        });
+    }
+
+    // through the service, so the catalogue snapshot and version see the sweets
+    private void seedCatalogue() {
+        String run = Long.toString(System.nanoTime(), 36);
+        Random random = new Random(SEED);
+        for (int i = 0; i < CATALOGUE; i++) {
+            service.addSweet(new SweetDto(null, TERMS[i % TERMS.length] + " " + run + " " + i,
+                    CATEGORIES[random.nextInt(CATEGORIES.length)], 10 + random.nextInt(490) + 0.5, 1_000_000));
+        }
+    }
+
+    private HttpRequest get(int port, String path, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create("http://localhost:" + port + path))
+                .timeout(Duration.ofSeconds(30))
+                .GET();
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+
+    private int send(HttpRequest request) throws Exception {
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
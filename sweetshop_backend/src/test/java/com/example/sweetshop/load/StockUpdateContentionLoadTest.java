@@ -0,0 +1,128 @@
+package com.example.sweetshop.load;
+
+import com.example.sweetshop.TestcontainersConfiguration;
+import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.exception.InsufficientStockException;
+import com.example.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Compares the guarded {@code UPDATE ... RETURNING} against load, check and dirty-check on one
+ * contended row. Both sides touch only the sweet row, so the history tables written by a real
+ * purchase stay out of the figures. Tagged {@code load}; the report goes to stdout and
+ * {@code target/load-report-contention.txt}. Tune it with {@code -Dload.concurrency} and
+ * {@code -Dload.hotStock}.
+ */
+@Tag("load")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class StockUpdateContentionLoadTest {
+
+    static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+    static final int HOT_STOCK = Integer.getInteger("load.hotStock", 2000);
+
+    @Autowired SweetRepository repo;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void conditionalUpdateShouldOutperformLoadAndDirtyCheck() throws Exception {
+        Long conditionalId = newSweet("Conditional Barfi").getId();
+        Long entityId = newSweet("Entity Barfi").getId();
+
+        Result conditional = hammer(() -> conditionalUpdate(conditionalId));
+        Result entity = hammer(() -> loadAndDirtyCheck(entityId));
+
+        String text = String.format("stock update contention: concurrency=%d stock=%d%n"
+                        + "  conditional update     %8.0f/s (%d ms)%n"
+                        + "  load and dirty check   %8.0f/s (%d ms)%n",
+                CONCURRENCY, HOT_STOCK, conditional.throughput(), conditional.millis(),
+                entity.throughput(), entity.millis());
+        System.out.print(text);
+        Files.createDirectories(Path.of("target"));
+        Files.writeString(Path.of("target", "load-report-contention.txt"), text);
+
+        assertEquals(HOT_STOCK, conditional.succeeded());
+        assertEquals(HOT_STOCK, entity.succeeded());
+        assertTrue(conditional.throughput() > entity.throughput(), text);
+    }
+
+    private void conditionalUpdate(Long id) {
+        transactionTemplate.executeWithoutResult(status -> repo.decrementStock(id, 1)
+                .orElseThrow(() -> new InsufficientStockException("Conditional Barfi", 0, 1)));
+    }
+
+    // the @Version check turns a lost update into a conflict, so the entity path has to retry
+    private void loadAndDirtyCheck(Long id) {
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Sweet s = repo.findById(id).orElseThrow();
+                    if (s.getQuantity() < 1) throw new InsufficientStockException(s.getName(), s.getQuantity(), 1);
+                    s.setQuantity(s.getQuantity() - 1);
+                });
+                return;
+            } catch (ObjectOptimisticLockingFailureException ex) {
+                // another buyer committed first; reload and try again
+            }
+        }
+    }
+
+    private Sweet newSweet(String name) {
+        Sweet s = new Sweet();
+        s.setName(name + " " + System.nanoTime());
+        s.setCategory("Test");
+        s.setPrice(10.0);
+        s.setQuantity(HOT_STOCK);
+        return repo.save(s);
+    }
+
+    // every worker keeps buying until the row is sold out
+    private Result hammer(Runnable purchase) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(CONCURRENCY);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < CONCURRENCY; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                while (true) {
+                    try {
+                        purchase.run();
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientStockException ex) {
+                        return null;
+                    }
+                }
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(5, TimeUnit.MINUTES);
+        }
+        long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin));
+        pool.shutdown();
+        return new Result(succeeded.get(), millis);
+    }
+
+    private record Result(int succeeded, long millis) {
+        double throughput() {
+            return succeeded * 1000.0 / millis;
+        }
+    }
+}
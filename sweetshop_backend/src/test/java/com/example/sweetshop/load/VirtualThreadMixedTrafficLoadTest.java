@@ -0,0 +1,35 @@
+package com.example.sweetshop.load;
+
+import com.example.sweetshop.TestcontainersConfiguration;
+import org.junit.jupiter.api.Tag;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * The same traffic with {@code spring.threads.virtual.enabled=true}, reported to
+ * {@code target/load-report-virtual.txt} for comparison with the platform-thread run. Raise
+ * {@code -Dload.concurrency} past Tomcat's 200 worker threads to see the difference.
+ */
+@Tag("load")
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "spring.threads.virtual.enabled=true")
+class VirtualThreadMixedTrafficLoadTest extends MixedTrafficLoadTest {
+
+    @Override
+    String mode() {
+        return "virtual threads";
+    }
+
+    @Override
+    String reportFile() {
+        return "load-report-virtual.txt";
+    }
+
+    @Override
+    ThreadFactory clientThreads() {
+        return Thread.ofVirtual().name("load-client-", 0).factory();
+    }
+}
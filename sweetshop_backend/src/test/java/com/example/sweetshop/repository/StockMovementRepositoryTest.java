@@ -0,0 +1,106 @@
+package com.example.sweetshop.repository;
+
+import com.example.sweetshop.TestcontainersConfiguration;
+import com.example.sweetshop.dto.CategorySales;
+import com.example.sweetshop.dto.CheckoutItem;
+import com.example.sweetshop.dto.MovementPage;
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.dto.TopSeller;
+import com.example.sweetshop.entity.StockMovement;
+import com.example.sweetshop.service.ReportService;
+import com.example.sweetshop.service.SweetService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class StockMovementRepositoryTest {
+
+    @Autowired SweetService service;
+    @Autowired ReportService reports;
+    @Autowired StockMovementRepository movements;
+
+    @Test
+    void stockChangesShouldBeRecordedAndRolledUp() {
+        String category = "History " + System.nanoTime();
+        Long ladoo = service.addSweet(new SweetDto(null, "Ladoo " + category, category, 2.0, 1_000_000)).getId();
+        Long barfi = service.addSweet(new SweetDto(null, "Barfi " + category, category, 3.0, 10)).getId();
+
+        service.purchase(ladoo, 600_000);
+        service.checkout(List.of(new CheckoutItem(ladoo, 1), new CheckoutItem(barfi, 4)));
+        service.restock(barfi, 5);
+        // fails on the barfi line, so neither line may show up in history or sales
+        service.checkout(List.of(new CheckoutItem(ladoo, 1), new CheckoutItem(barfi, 50)));
+
+        List<StockMovement> history = movements.history(ladoo, null, 10).getItems();
+        assertEquals(List.of(StockMovement.Kind.PURCHASE, StockMovement.Kind.PURCHASE, StockMovement.Kind.ADJUSTMENT),
+                history.stream().map(StockMovement::kind).toList());
+        assertEquals(-1, history.get(0).delta());
+        assertEquals(2.0, history.get(0).unitPrice());
+        assertEquals(List.of(5, -4, 10), movements.history(barfi, null, 10).getItems().stream().map(StockMovement::delta).toList());
+
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        List<CategorySales> sales = reports.categorySales(today, today).stream()
+                .filter(c -> category.equals(c.getCategory()))
+                .toList();
+        assertEquals(1, sales.size());
+        assertEquals(600_005, sales.get(0).getUnits());
+        assertEquals(600_001 * 2.0 + 4 * 3.0, sales.get(0).getRevenue(), 0.001);
+
+        TopSeller top = reports.topSellers(today, today, 1).get(0);
+        assertEquals(ladoo, top.getSweetId());
+        assertEquals(600_001, top.getUnits());
+    }
+
+    @Test
+    void historyPagesShouldNotSkipMovementsSharingATimestamp() {
+        Long peda = service.addSweet(new SweetDto(null, "Peda " + System.nanoTime(), "Milk", 4.0, 0)).getId();
+        Instant at = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        List<StockMovement> batch = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            batch.add(new StockMovement(peda, StockMovement.Kind.RESTOCK, i, null, at));
+        }
+        movements.record(batch);
+
+        List<Integer> seen = new ArrayList<>();
+        Long cursor = null;
+        do {
+            MovementPage page = movements.history(peda, cursor, 2);
+            page.getItems().forEach(m -> seen.add(m.delta()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(List.of(5, 4, 3, 2, 1), seen);
+    }
+
+    @Test
+    void partitionsShouldBePreparedAhead() {
+        YearMonth current = YearMonth.now(ZoneOffset.UTC);
+        List<String> partitions = movements.partitions();
+
+        for (YearMonth month : List.of(current.minusMonths(1), current, current.plusMonths(2))) {
+            assertTrue(partitions.contains(String.format("stock_movement_%d_%02d", month.getYear(), month.getMonthValue())),
+                    () -> "missing partition for " + month + " in " + partitions);
+        }
+        assertTrue(partitions.contains("stock_movement_default"));
+    }
+
+    @Test
+    void reportsShouldRejectInvertedRange() {
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+
+        assertThrows(IllegalArgumentException.class, () -> reports.topSellers(today, today.minusDays(1), 10));
+    }
+}
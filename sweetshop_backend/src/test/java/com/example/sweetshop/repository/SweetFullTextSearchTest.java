@@ -0,0 +1,61 @@
+package com.example.sweetshop.repository;
+
+import com.example.sweetshop.TestcontainersConfiguration;
+import com.example.sweetshop.entity.Sweet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest(properties = "app.searchBackend=fulltext")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class SweetFullTextSearchTest {
+
+    private static final int ROWS = 5_000;
+
+    @Autowired SweetRepository repo;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @BeforeAll
+    void load() {
+        jdbcTemplate.update("""
+                INSERT INTO sweet (name, category, price, quantity)
+                SELECT (ARRAY['Ladoo', 'Barfi', 'Jalebi', 'Peda', 'Rasgulla', 'Halwa', 'Kaju Katli', 'Soan Papdi'])[1 + g % 8]
+                           || ' ' || g,
+                       (ARRAY['Traditional', 'Milk', 'Dry Fruit', 'Festive'])[1 + g % 4],
+                       10 + g % 500,
+                       g % 100
+                FROM generate_series(1, ?) g
+                """, ROWS);
+        jdbcTemplate.execute("ANALYZE sweet");
+    }
+
+    @Test
+    void rankedSearchShouldFindExactFuzzyAndFilteredMatches() {
+        List<Sweet> exact = repo.searchRanked("katli", null, null, null, 20);
+        assertEquals(20, exact.size());
+        assertTrue(exact.stream().allMatch(s -> s.getName().startsWith("Kaju Katli")));
+
+        List<Sweet> fuzzy = repo.searchRanked("kaju katly 1006", null, null, null, 5);
+        assertFalse(fuzzy.isEmpty());
+        assertTrue(fuzzy.get(0).getName().startsWith("Kaju Katli"));
+
+        List<Sweet> filtered = repo.searchRanked("barfi", "milk", 100.0, 200.0, 50);
+        assertFalse(filtered.isEmpty());
+        assertTrue(filtered.stream().allMatch(s ->
+                s.getCategory().equals("Milk") && s.getPrice() >= 100 && s.getPrice() <= 200));
+    }
+
+    @Test
+    void exactNameShouldRankFirst() {
+        assertEquals("Rasgulla 4244", repo.searchRanked("rasgulla 4244", null, null, null, 20).get(0).getName());
+    }
+}
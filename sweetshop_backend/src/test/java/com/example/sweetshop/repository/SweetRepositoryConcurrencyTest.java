@@ -0,0 +1,104 @@
+package com.example.sweetshop.repository;
+
+import com.example.sweetshop.TestcontainersConfiguration;
+import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.exception.InsufficientStockException;
+import com.example.sweetshop.service.SweetService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class SweetRepositoryConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 50;
+    private static final int INITIAL_STOCK = 400;
+
+    @Autowired SweetRepository repo;
+    @Autowired SweetService service;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    void conditionalUpdateShouldNeverOversell() throws Exception {
+        Long id = newSweet("Conditional Ladoo").getId();
+
+        int sold = hammer(() -> service.purchase(id, 1));
+
+        assertEquals(INITIAL_STOCK, sold);
+        assertEquals(0, repo.findById(id).orElseThrow().getQuantity());
+    }
+
+    @Test
+    void loadAndDirtyCheckShouldNeverOversellWhenRetried() throws Exception {
+        Long id = newSweet("Entity Barfi").getId();
+
+        int sold = hammer(() -> loadAndDirtyCheck(id));
+
+        assertEquals(INITIAL_STOCK, sold);
+        assertEquals(0, repo.findById(id).orElseThrow().getQuantity());
+    }
+
+    // the @Version check turns a lost update into a conflict, so the entity path has to retry
+    private void loadAndDirtyCheck(Long id) {
+        while (true) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    Sweet s = repo.findById(id).orElseThrow();
+                    if (s.getQuantity() < 1) throw new InsufficientStockException(s.getName(), s.getQuantity(), 1);
+                    s.setQuantity(s.getQuantity() - 1);
+                });
+                return;
+            } catch (ObjectOptimisticLockingFailureException ex) {
+                // another buyer committed first; reload and try again
+            }
+        }
+    }
+
+    private Sweet newSweet(String name) {
+        Sweet s = new Sweet();
+        s.setName(name + " " + System.nanoTime());
+        s.setCategory("Test");
+        s.setPrice(10.0);
+        s.setQuantity(INITIAL_STOCK);
+        return repo.save(s);
+    }
+
+    private int hammer(Runnable purchase) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        purchase.run();
+                        succeeded.incrementAndGet();
+                    } catch (InsufficientStockException ex) {
+                        // sold out
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(2, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+        return succeeded.get();
+    }
+}
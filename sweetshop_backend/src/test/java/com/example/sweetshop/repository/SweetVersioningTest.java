@@ -0,0 +1,67 @@
+package com.example.sweetshop.repository;
+
+import com.example.sweetshop.TestcontainersConfiguration;
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.exception.SweetVersionMismatchException;
+import com.example.sweetshop.service.SweetService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class SweetVersioningTest {
+
+    @Autowired SweetService service;
+    @Autowired SweetRepository repo;
+
+    @Test
+    void stockChangesShouldInvalidateAnEarlierVersion() {
+        Sweet created = service.addSweet(new SweetDto(null, "Versioned Ladoo " + System.nanoTime(), "Traditional", 10.0, 50));
+        long read = service.getSweet(created.getId()).getVersion();
+
+        service.purchase(created.getId(), 1);
+
+        assertTrue(repo.findById(created.getId()).orElseThrow().getVersion() > read);
+        SweetDto stale = new SweetDto(created.getId(), created.getName(), "Traditional", 12.0, 50);
+        assertThrows(SweetVersionMismatchException.class, () -> service.updateSweet(created.getId(), stale, read));
+        assertEquals(49, repo.findById(created.getId()).orElseThrow().getQuantity());
+
+        long current = service.getSweet(created.getId()).getVersion();
+        Sweet updated = service.updateSweet(created.getId(), stale, current);
+        assertEquals(current + 1, updated.getVersion());
+        assertEquals(50, updated.getQuantity());
+    }
+
+    @Test
+    void patchesShouldNeverUndoConcurrentPurchases() throws Exception {
+        Sweet created = service.addSweet(new SweetDto(null, "Patched Barfi " + System.nanoTime(), "Milk", 10.0, 1000));
+        Long id = created.getId();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            futures.add(pool.submit(() -> service.purchase(id, 1)));
+        }
+        for (int i = 0; i < 20; i++) {
+            double price = 10.0 + i;
+            futures.add(pool.submit(() -> service.patchSweet(id, new SweetDto(null, null, null, price, null), null)));
+        }
+        for (Future<?> f : futures) {
+            // a patch without If-Match never conflicts with a purchase, so nothing may fail
+            f.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        Sweet after = repo.findById(id).orElseThrow();
+        assertEquals(800, after.getQuantity());
+        assertEquals(created.getName(), after.getName());
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.sweetshop.repository;
+
+import com.example.sweetshop.TestcontainersConfiguration;
+import com.example.sweetshop.dto.RegisterRequest;
+import com.example.sweetshop.exception.EmailAlreadyExistsException;
+import com.example.sweetshop.service.AuthService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(TestcontainersConfiguration.class)
+@SpringBootTest
+class UserRegistrationConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired AuthService authService;
+    @Autowired JdbcTemplate jdbcTemplate;
+
+    @Test
+    void concurrentRegistrationsWithSameEmailShouldHaveExactlyOneWinner() throws Exception {
+        String email = "race-" + System.nanoTime() + "@example.com";
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger won = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            String username = "racer" + t;
+            futures.add(pool.submit(() -> {
+                start.await();
+                try {
+                    authService.register(new RegisterRequest(username, email, "password123", "ROLE_USER"));
+                    won.incrementAndGet();
+                } catch (EmailAlreadyExistsException ex) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get(1, TimeUnit.MINUTES);
+        }
+        pool.shutdown();
+
+        assertEquals(1, won.get());
+        assertEquals(THREADS - 1, rejected.get());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM users WHERE email = ?", Integer.class, email));
+    }
+}
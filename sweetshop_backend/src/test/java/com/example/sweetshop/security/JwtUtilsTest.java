@@ -0,0 +1,56 @@
+package com.example.sweetshop.security;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtUtilsTest {
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    void setUp() {
+        jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "jwtSecret", "test_secret_that_is_long_enough_for_hs256");
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(jwtUtils, "jwtCacheMaxEntries", 16);
+        jwtUtils.init();
+    }
+
+    @Test
+    void tokenShouldCarryRoles() {
+        String token = jwtUtils.generateToken("alice@example.com", List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+
+        Claims claims = jwtUtils.verify(token);
+        List<GrantedAuthority> authorities = jwtUtils.getAuthorities(claims);
+
+        assertEquals("alice@example.com", claims.getSubject());
+        assertEquals(List.of(new SimpleGrantedAuthority("ROLE_ADMIN")), authorities);
+    }
+
+    @Test
+    void tamperedTokenShouldBeRejected() {
+        String token = jwtUtils.generateToken("alice@example.com", List.of());
+
+        assertTrue(jwtUtils.validateJwtToken(token));
+        assertFalse(jwtUtils.validateJwtToken(token.substring(0, token.length() - 2) + "xx"));
+    }
+
+    @Test
+    void repeatedVerificationShouldBeServedFromCache() {
+        String token = jwtUtils.generateToken("alice@example.com", List.of());
+
+        Claims first = jwtUtils.verify(token);
+        Claims second = jwtUtils.verify(token);
+
+        assertNotNull(first);
+        assertSame(first, second);
+    }
+}
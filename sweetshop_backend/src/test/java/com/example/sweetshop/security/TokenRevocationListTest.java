@@ -0,0 +1,58 @@
+package com.example.sweetshop.security;
+
+import com.example.sweetshop.exception.RevocationListFullException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTest {
+
+    private static final long NOW = 1_700_000_000_500L;
+
+    private TokenRevocationList revocations;
+
+    @BeforeEach
+    void setUp() {
+        revocations = new TokenRevocationList();
+        ReflectionTestUtils.setField(revocations, "jwtExpirationMs", 60_000);
+        ReflectionTestUtils.setField(revocations, "maxEntries", 2);
+    }
+
+    @Test
+    void tokenFromTheRevocationSecondShouldStayValid() {
+        revocations.revokeAll("alice", NOW);
+
+        assertTrue(revocations.isRevoked("alice", new Date(NOW - 1_000)));
+        // iat is truncated to seconds, so a token signed right after the revocation lands here
+        assertFalse(revocations.isRevoked("alice", new Date(NOW - 500)));
+        assertFalse(revocations.isRevoked("bob", new Date(NOW - 1_000)));
+    }
+
+    @Test
+    void fullListShouldRefuseNewRevocationsAndKeepTheLiveOnes() {
+        revocations.revokeAll("alice", NOW);
+        revocations.revokeAll("bob", NOW + 1_000);
+
+        assertThrows(RevocationListFullException.class, () -> revocations.revokeAll("carol", NOW + 2_000));
+        revocations.revokeAll("alice", NOW + 3_000);
+
+        assertTrue(revocations.isRevoked("alice", new Date(NOW + 2_000)));
+        assertTrue(revocations.isRevoked("bob", new Date(NOW - 10_000)));
+        assertFalse(revocations.isRevoked("carol", new Date(NOW - 10_000)));
+    }
+
+    @Test
+    void expiredRevocationsShouldMakeRoom() {
+        revocations.revokeAll("alice", NOW);
+        revocations.revokeAll("bob", NOW + 1_000);
+
+        revocations.revokeAll("carol", NOW + 120_000);
+
+        assertTrue(revocations.isRevoked("carol", new Date(NOW)));
+        assertFalse(revocations.isRevoked("alice", new Date(NOW - 10_000)));
+    }
+}
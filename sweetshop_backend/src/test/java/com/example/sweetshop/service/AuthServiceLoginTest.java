@@ -4,6 +4,7 @@ import com.example.sweetshop.dto.AuthRequest;
 import com.example.sweetshop.dto.LoginResponse;
 import com.example.sweetshop.entity.Users;
 import com.example.sweetshop.security.JwtUtils;
+import com.example.sweetshop.security.UserPrincipal;
 import org.junit.jupiter.api.*;
 import org.mockito.*;
 import org.springframework.security.authentication.*;
@@ -12,6 +13,7 @@ import org.springframework.security.core.Authentication;
 import java.util.Optional;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class AuthServiceLoginTest {
@@ -51,13 +53,14 @@ class AuthServiceLoginTest {
         Users user = new Users();
         user.setUsername("alice");
         user.setEmail("alice@example.com");
+        user.setPassword("$2a$10$hash");
         user.setRole("USER");
 
         when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
                 .thenReturn(authMock);
         when(authMock.getName()).thenReturn("alice@example.com");
-        when(userRepository.findByEmail("alice@example.com")).thenReturn(Optional.of(user));
-        when(jwtUtils.generateToken("alice@example.com")).thenReturn("jwt-token-123");
+        when(authMock.getPrincipal()).thenReturn(new UserPrincipal(user));
+        when(jwtUtils.generateToken(eq("alice@example.com"), any())).thenReturn("jwt-token-123");
 
         // Act
         LoginResponse resp = authService.login(req);
@@ -68,6 +71,7 @@ class AuthServiceLoginTest {
         assert "alice".equals(resp.getUsername());
         assert "alice@example.com".equals(resp.getEmail());
         assert "USER".equals(resp.getRole());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
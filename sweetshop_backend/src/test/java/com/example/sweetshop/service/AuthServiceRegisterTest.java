@@ -1,7 +1,6 @@
 package com.example.sweetshop.service;
 
 import com.example.sweetshop.dto.RegisterRequest;
-import com.example.sweetshop.entity.Users;
 import com.example.sweetshop.exception.EmailAlreadyExistsException;
 import com.example.sweetshop.repository.UserRepository;
 import com.example.sweetshop.security.JwtUtils;
@@ -10,6 +9,8 @@ import org.mockito.*;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 class AuthServiceRegisterTest {
@@ -30,23 +31,26 @@ class AuthServiceRegisterTest {
     @Test
     void registerShouldSaveUser() {
         RegisterRequest req = new RegisterRequest("alice", "alice@example.com", "password123","ADMIN");
-        when(userRepository.existsByEmail(req.getEmail())).thenReturn(false);
         when(passwordEncoder.encode(req.getPassword())).thenReturn("encoded-password");
+        when(userRepository.insertIfAbsent(any(), any(), any(), any())).thenReturn(1);
 
         authService.register(req);
 
-        ArgumentCaptor<Users> captor = ArgumentCaptor.forClass(Users.class);
-        verify(userRepository, times(1)).save(captor.capture());
-        Users saved = captor.getValue();
-        assert saved.getEmail().equals("alice@example.com");
-        assert saved.getPassword().equals("encoded-password");
-        assert saved.getRole().equals("ROLE_USER");
+        ArgumentCaptor<String> email = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> password = ArgumentCaptor.forClass(String.class);
+        ArgumentCaptor<String> role = ArgumentCaptor.forClass(String.class);
+        verify(userRepository, times(1)).insertIfAbsent(eq("alice"), email.capture(), password.capture(), role.capture());
+        verify(userRepository, never()).existsByEmail(any());
+        assert email.getValue().equals("alice@example.com");
+        assert password.getValue().equals("encoded-password");
+        assert role.getValue().equals("ROLE_USER");
     }
 
     @Test
     void registerShouldThrowWhenEmailExists() {
         RegisterRequest req = new RegisterRequest("bob", "bob@example.com", "pass","USER");
-        when(userRepository.existsByEmail(req.getEmail())).thenReturn(true);
+        when(passwordEncoder.encode(req.getPassword())).thenReturn("encoded-pass");
+        when(userRepository.insertIfAbsent(any(), any(), any(), any())).thenReturn(0);
 
         try {
             authService.register(req);
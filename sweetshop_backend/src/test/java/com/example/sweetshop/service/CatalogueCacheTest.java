@@ -0,0 +1,113 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.entity.Sweet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogueCacheTest {
+
+    private final CatalogueCache cache = new CatalogueCache(100, 60_000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void repeatedReadsShouldHitTheCache() {
+        read(CatalogueQuery.byCategory("Milk"), sweet(1L, "Barfi", "Milk"));
+        read(CatalogueQuery.byCategory("milk"), sweet(1L, "Barfi", "Milk"));
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void changeShouldOnlyDropEntriesItTouches() {
+        CatalogueQuery milk = CatalogueQuery.byCategory("Milk");
+        CatalogueQuery traditional = CatalogueQuery.byCategory("Traditional");
+        read(milk, sweet(1L, "Barfi", "Milk"));
+        read(traditional, sweet(2L, "Ladoo", "Traditional"));
+
+        cache.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.UPDATED, 1L,
+                new SweetDto(1L, "Barfi", "Milk", 30.0, 4)));
+        read(milk, sweet(1L, "Barfi", "Milk"));
+        read(traditional, sweet(2L, "Ladoo", "Traditional"));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void newSweetShouldDropQueriesItNowMatches() {
+        CatalogueQuery byName = CatalogueQuery.byName("lad");
+        read(byName, sweet(2L, "Ladoo", "Traditional"));
+
+        cache.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.CREATED, 3L,
+                new SweetDto(3L, "Besan Ladoo", "Traditional", 40.0, 10)));
+        read(byName, sweet(2L, "Ladoo", "Traditional"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void stockChangeShouldBePatchedIntoEveryEntryHoldingTheSweet() {
+        CatalogueQuery all = CatalogueQuery.all();
+        CatalogueQuery milk = CatalogueQuery.byCategory("Milk");
+        read(all, sweet(1L, "Barfi", "Milk"));
+        read(milk, sweet(1L, "Barfi", "Milk"));
+
+        cache.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.STOCK, 1L,
+                new SweetDto(1L, "Barfi", "Milk", 10.0, 2)));
+
+        assertEquals(2, read(all, sweet(1L, "Barfi", "Milk")).get(0).getQuantity());
+        assertEquals(2, read(milk, sweet(1L, "Barfi", "Milk")).get(0).getQuantity());
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void loadOverlappingAnUnrelatedChangeShouldStillBeCached() {
+        CatalogueQuery milk = CatalogueQuery.byCategory("Milk");
+        cache.get(milk, () -> {
+            loads.incrementAndGet();
+            cache.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.UPDATED, 2L,
+                    new SweetDto(2L, "Ladoo", "Traditional", 5.0, 9)));
+            cache.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.STOCK, 1L,
+                    new SweetDto(1L, "Barfi", "Milk", 10.0, 3)));
+            return List.of(sweet(1L, "Barfi", "Milk"));
+        });
+
+        assertEquals(3, read(milk, sweet(1L, "Barfi", "Milk")).get(0).getQuantity(),
+                "the figure committed during the load is applied to the stored copy");
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void loadOverlappingAnUnknownStockChangeToItsRowsShouldNotBeCached() {
+        CatalogueQuery milk = CatalogueQuery.byCategory("Milk");
+        cache.get(milk, () -> {
+            loads.incrementAndGet();
+            cache.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.STOCK, 1L, null));
+            return List.of(sweet(1L, "Barfi", "Milk"));
+        });
+        read(milk, sweet(1L, "Barfi", "Milk"));
+
+        assertEquals(2, loads.get());
+    }
+
+    private List<Sweet> read(CatalogueQuery query, Sweet result) {
+        return cache.get(query, () -> {
+            loads.incrementAndGet();
+            return List.of(result);
+        });
+    }
+
+    private static Sweet sweet(Long id, String name, String category) {
+        Sweet s = new Sweet();
+        s.setId(id);
+        s.setName(name);
+        s.setCategory(category);
+        s.setPrice(10.0);
+        s.setQuantity(5);
+        return s;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.repository.SweetRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Sort;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogueSnapshotTest {
+
+    private final SweetRepository repo = mock(SweetRepository.class);
+    private final CatalogueVersion version = new CatalogueVersion();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Test
+    void snapshotShouldMatchWhatJacksonWritesForTheList() throws IOException {
+        when(repo.findAll(any(Sort.class))).thenReturn(List.of(sweet(1L, "Ladoo", 10), sweet(2L, "Barfi", 4)));
+        CatalogueSnapshot snapshot = new CatalogueSnapshot(repo, version, objectMapper, Runnable::run);
+
+        snapshot.build();
+
+        CatalogueSnapshot.Snapshot current = snapshot.currentSnapshot();
+        String expected = objectMapper.writeValueAsString(List.of(dto(1L, "Ladoo", 10), dto(2L, "Barfi", 4)));
+        assertEquals(expected, new String(current.json(), StandardCharsets.UTF_8));
+        assertArrayEquals(current.json(), gunzip(current.gzip()));
+    }
+
+    @Test
+    void emptyCatalogueShouldBeAnEmptyArray() {
+        when(repo.findAll(any(Sort.class))).thenReturn(List.of());
+        CatalogueSnapshot snapshot = new CatalogueSnapshot(repo, version, objectMapper, Runnable::run);
+
+        snapshot.build();
+
+        assertEquals("[]", new String(snapshot.currentSnapshot().json(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void changesShouldOnlyReencodeTheTouchedSweets() throws IOException {
+        when(repo.findAll(any(Sort.class))).thenReturn(List.of(sweet(1L, "Ladoo", 10), sweet(2L, "Barfi", 4)));
+        CatalogueSnapshot snapshot = new CatalogueSnapshot(repo, version, objectMapper, Runnable::run);
+        snapshot.build();
+
+        change(snapshot, new SweetChangedEvent(SweetChangedEvent.Type.STOCK, 2L, dto(2L, "Barfi", 3)));
+        change(snapshot, new SweetChangedEvent(SweetChangedEvent.Type.DELETED, 1L, null));
+
+        String expected = objectMapper.writeValueAsString(List.of(dto(2L, "Barfi", 3)));
+        assertEquals(expected, new String(snapshot.currentSnapshot().json(), StandardCharsets.UTF_8));
+        verify(repo, times(1)).findAll(any(Sort.class));
+        verify(repo, never()).findAllById(any());
+    }
+
+    @Test
+    void changesWithoutStateShouldBeLoadedById() throws IOException {
+        when(repo.findAll(any(Sort.class))).thenReturn(List.of(sweet(1L, "Ladoo", 10)));
+        when(repo.findAllById(List.of(1L))).thenReturn(List.of(sweet(1L, "Ladoo", 7)));
+        CatalogueSnapshot snapshot = new CatalogueSnapshot(repo, version, objectMapper, Runnable::run);
+        snapshot.build();
+
+        change(snapshot, new SweetChangedEvent(SweetChangedEvent.Type.STOCK, 1L, null));
+
+        String expected = objectMapper.writeValueAsString(List.of(dto(1L, "Ladoo", 7)));
+        assertEquals(expected, new String(snapshot.currentSnapshot().json(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void snapshotBehindTheCatalogueShouldNotBeServed() {
+        when(repo.findAll(any(Sort.class))).thenReturn(List.of(sweet(1L, "Ladoo", 10)));
+        CatalogueSnapshot snapshot = new CatalogueSnapshot(repo, version, objectMapper, tasks::add);
+        snapshot.build();
+
+        SweetChangedEvent event = new SweetChangedEvent(SweetChangedEvent.Type.STOCK, 1L, dto(1L, "Ladoo", 9));
+        snapshot.onSweetChanged(event);
+        version.onSweetChanged(event);
+        snapshot.refreshAfterChange(event);
+        assertNull(snapshot.currentSnapshot(), "the rebuild has not run yet");
+
+        tasks.forEach(Runnable::run);
+        assertNotNull(snapshot.currentSnapshot());
+    }
+
+    // the order Spring calls the listeners in
+    private void change(CatalogueSnapshot snapshot, SweetChangedEvent event) {
+        snapshot.onSweetChanged(event);
+        version.onSweetChanged(event);
+        snapshot.refreshAfterChange(event);
+    }
+
+    private static Sweet sweet(Long id, String name, int quantity) {
+        Sweet s = new Sweet();
+        s.setId(id);
+        s.setName(name);
+        s.setCategory("Traditional");
+        s.setPrice(5.0);
+        s.setQuantity(quantity);
+        return s;
+    }
+
+    private static SweetDto dto(Long id, String name, int quantity) {
+        return new SweetDto(id, name, "Traditional", 5.0, quantity);
+    }
+
+    private static byte[] gunzip(byte[] gzip) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            return in.readAllBytes();
+        }
+    }
+}
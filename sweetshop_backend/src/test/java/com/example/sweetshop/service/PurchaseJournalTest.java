@@ -0,0 +1,98 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.entity.StockMovement;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PurchaseJournalTest {
+
+    private static final int SEGMENT = 40 * 4 + 4;
+
+    @TempDir Path dir;
+
+    @Test
+    void reopenShouldRecoverDeltasBeyondCheckpoint() {
+        try (PurchaseJournal journal = new PurchaseJournal(dir.toString(), 4096)) {
+            assertTrue(journal.open(0).deltas().isEmpty());
+            journal.append(StockMovement.purchase(1L, 2));
+            journal.append(StockMovement.purchase(2L, 1));
+            journal.append(StockMovement.restock(1L, 5));
+            journal.appendAll(List.of(StockMovement.purchase(2L, 3), StockMovement.adjustment(3L, -1)));
+        }
+
+        try (PurchaseJournal journal = new PurchaseJournal(dir.toString(), 4096)) {
+            PurchaseJournal.Recovery recovery = journal.open(2);
+            assertEquals(5, recovery.lastSeq());
+            assertEquals(Map.of(1L, 5, 2L, -3, 3L, -1), recovery.deltas());
+            assertEquals(List.of(StockMovement.Kind.RESTOCK, StockMovement.Kind.PURCHASE, StockMovement.Kind.ADJUSTMENT),
+                    recovery.movements().stream().map(StockMovement::kind).toList());
+            // numbering carries on from the last recovered entry
+            assertEquals(6, journal.append(StockMovement.purchase(1L, 1)));
+        }
+    }
+
+    @Test
+    void drainShouldReturnDurableEntriesInOrderAndAcceptRequeue() {
+        try (PurchaseJournal journal = new PurchaseJournal(dir.toString(), 4096)) {
+            journal.open(0);
+            StockMovement first = StockMovement.purchase(1L, 1);
+            StockMovement second = StockMovement.purchase(2L, 1);
+            journal.append(first);
+            journal.append(second);
+
+            List<PurchaseJournal.Entry> batch = journal.drainDurable();
+            assertEquals(List.of(new PurchaseJournal.Entry(1, first), new PurchaseJournal.Entry(2, second)), batch);
+            assertTrue(journal.drainDurable().isEmpty());
+
+            journal.append(StockMovement.purchase(3L, 1));
+            journal.requeue(batch);
+            assertEquals(List.of(1L, 2L, 3L), journal.drainDurable().stream().map(PurchaseJournal.Entry::seq).toList());
+        }
+    }
+
+    @Test
+    void shouldRotateSegmentsAndTruncateCoveredOnes() throws IOException {
+        // room for four records per segment
+        try (PurchaseJournal journal = new PurchaseJournal(dir.toString(), SEGMENT)) {
+            journal.open(0);
+            for (int i = 0; i < 10; i++) {
+                journal.append(StockMovement.purchase(1L, 1));
+            }
+            assertEquals(3, segmentCount());
+
+            journal.truncate(5);
+            assertEquals(2, segmentCount());
+            journal.truncate(10);
+            assertEquals(1, segmentCount());
+        }
+
+        try (PurchaseJournal journal = new PurchaseJournal(dir.toString(), SEGMENT)) {
+            PurchaseJournal.Recovery recovery = journal.open(10);
+            assertEquals(10, recovery.lastSeq());
+            assertTrue(recovery.movements().isEmpty());
+        }
+    }
+
+    @Test
+    void emptyJournalShouldContinueAfterCheckpoint() {
+        try (PurchaseJournal journal = new PurchaseJournal(dir.toString(), 4096)) {
+            assertEquals(42, journal.open(42).lastSeq());
+            assertEquals(43, journal.append(StockMovement.purchase(7L, 1)));
+        }
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.count();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.entity.StockMovement;
+import com.example.sweetshop.exception.SweetNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StockLedgerTest {
+
+    @Test
+    void concurrentReservationsShouldNeverOversell() throws Exception {
+        StockLedger ledger = new StockLedger();
+        ledger.load(Map.of(1L, 100));
+        AtomicInteger admitted = new AtomicInteger();
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 500; i++) {
+            pool.submit(() -> {
+                if (ledger.tryReserve(1L, 1) >= 0) {
+                    admitted.incrementAndGet();
+                    ledger.recordPending(1L, -1);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, admitted.get());
+        assertEquals(0, ledger.available(1L));
+        assertEquals(Map.of(1L, -100), ledger.drainPending());
+        assertTrue(ledger.drainPending().isEmpty());
+    }
+
+    @Test
+    void unknownSweetShouldBeRejected() {
+        StockLedger ledger = new StockLedger();
+
+        assertThrows(SweetNotFoundException.class, () -> ledger.tryReserve(42L, 1));
+    }
+
+    @Test
+    void detailsShouldBeLoadedOnceAndFollowCommittedEdits() {
+        StockLedger ledger = new StockLedger();
+        ledger.load(Map.of(1L, 5));
+        AtomicInteger loads = new AtomicInteger();
+
+        ledger.details(1L, id -> { loads.incrementAndGet(); return new SweetDto(id, "Barfi", "Milk", 10.0, 5); });
+        ledger.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.UPDATED, 1L,
+                new SweetDto(1L, "Kaju Barfi", "Milk", 12.0, 5)));
+
+        SweetDto details = ledger.details(1L, id -> { loads.incrementAndGet(); return null; });
+        assertEquals("Kaju Barfi", details.getName());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void movementsShouldBeDrainedWithTheirDeltasAndRestoredOnFailure() {
+        StockLedger ledger = new StockLedger();
+        ledger.load(Map.of(1L, 10, 2L, 10));
+        StockMovement purchase = StockMovement.purchase(1L, 3);
+        StockMovement restock = StockMovement.restock(2L, 4);
+        ledger.recordPending(purchase);
+        ledger.recordPending(restock);
+
+        assertEquals(Map.of(1L, -3, 2L, 4), ledger.drainPending());
+        List<StockMovement> drained = ledger.drainMovements();
+        assertEquals(List.of(purchase, restock), drained);
+        assertTrue(ledger.drainMovements().isEmpty());
+
+        ledger.restoreMovements(drained);
+        assertEquals(drained, ledger.drainMovements());
+    }
+}
@@ -0,0 +1,213 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.dto.SweetUpdate;
+import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.repository.SweetRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.*;
+
+class StockUpdateBroadcasterTest {
+
+    private final SweetRepository repo = mock(SweetRepository.class);
+    private final StockLedger ledger = new StockLedger();
+    private final List<Runnable> tasks = new ArrayList<>();
+
+    @Test
+    void changesToOneSweetShouldBeCoalescedIntoOneEvent() {
+        StockUpdateBroadcaster broadcaster = new StockUpdateBroadcaster(repo, ledger, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter);
+
+        broadcaster.onSweetChanged(stock(1L, 5));
+        broadcaster.onSweetChanged(stock(1L, 3));
+        broadcaster.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.DELETED, 2L, null));
+        broadcaster.flush();
+
+        assertEquals(1, emitter.events.size());
+        List<SweetUpdate> updates = emitter.events.get(0);
+        assertEquals(2, updates.size());
+        assertEquals(1L, updates.get(0).getId());
+        assertEquals(3, updates.get(0).getQuantity());
+        assertTrue(updates.get(1).isDeleted());
+        verifyNoInteractions(repo);
+    }
+
+    @Test
+    void changesWithoutStateShouldBeLoadedOncePerWindow() {
+        StockUpdateBroadcaster broadcaster = new StockUpdateBroadcaster(repo, ledger, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter);
+        Sweet s = new Sweet();
+        s.setId(4L); s.setName("Peda"); s.setCategory("Milk"); s.setPrice(12.0); s.setQuantity(40);
+        when(repo.findAllById(anyIterable())).thenReturn(List.of(s));
+
+        broadcaster.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.STOCK, 4L, null));
+        broadcaster.onSweetChanged(new SweetChangedEvent(SweetChangedEvent.Type.STOCK, 5L, null));
+        broadcaster.flush();
+
+        verify(repo, times(1)).findAllById(List.of(4L, 5L));
+        List<SweetUpdate> updates = emitter.events.get(0);
+        assertEquals(40, updates.get(0).getQuantity());
+        assertTrue(updates.get(1).isDeleted(), "a sweet that is gone by now is reported as deleted");
+    }
+
+    @Test
+    void ledgerModesShouldReportTheLedgerFigure() {
+        StockUpdateBroadcaster broadcaster = new StockUpdateBroadcaster(repo, ledger, Runnable::run);
+        ReflectionTestUtils.setField(broadcaster, "purchaseMode", PurchaseMode.LEDGER);
+        ledger.load(Map.of(1L, 7));
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter);
+
+        broadcaster.onSweetChanged(stock(1L, 10));
+        broadcaster.flush();
+
+        assertEquals(7, emitter.events.get(0).get(0).getQuantity());
+    }
+
+    @Test
+    void updatesForASubscriberStillWritingShouldBeMergedIntoItsNextEvent() {
+        StockUpdateBroadcaster broadcaster = new StockUpdateBroadcaster(repo, ledger, tasks::add);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter);
+
+        broadcaster.onSweetChanged(stock(1L, 5));
+        broadcaster.flush();
+        broadcaster.onSweetChanged(stock(2L, 8));
+        broadcaster.flush();
+        broadcaster.onSweetChanged(stock(2L, 6));
+        broadcaster.flush();
+
+        assertEquals(1, tasks.size(), "one write in flight per subscriber");
+        tasks.get(0).run();
+
+        assertEquals(1, emitter.events.size());
+        List<SweetUpdate> updates = emitter.events.get(0);
+        assertEquals(List.of(1L, 2L), updates.stream().map(SweetUpdate::getId).toList());
+        assertEquals(6, updates.get(1).getQuantity());
+    }
+
+    @Test
+    void subscriberStuckBehindABacklogShouldBeDropped() {
+        StockUpdateBroadcaster broadcaster = new StockUpdateBroadcaster(repo, ledger, tasks::add);
+        ReflectionTestUtils.setField(broadcaster, "maxPending", 2);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter);
+
+        broadcaster.onSweetChanged(stock(1L, 5));
+        broadcaster.flush();
+        for (long id = 2; id <= 4; id++) {
+            broadcaster.onSweetChanged(stock(id, 1));
+        }
+        broadcaster.flush();
+
+        assertEquals(0, broadcaster.subscriberCount());
+        tasks.get(0).run();
+        assertTrue(emitter.events.isEmpty(), "nothing more is written to a dropped subscriber");
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void writeStillQueuedShouldNotCountAsLag() {
+        StockUpdateBroadcaster broadcaster = new StockUpdateBroadcaster(repo, ledger, tasks::add);
+        ReflectionTestUtils.setField(broadcaster, "maxLagMs", 0L);
+        RecordingEmitter emitter = new RecordingEmitter();
+        broadcaster.subscribe(emitter);
+
+        broadcaster.onSweetChanged(stock(1L, 5));
+        broadcaster.flush();
+        broadcaster.onSweetChanged(stock(2L, 8));
+        broadcaster.flush();
+
+        assertEquals(1, broadcaster.subscriberCount());
+        tasks.get(0).run();
+        assertEquals(1, emitter.events.size());
+    }
+
+    @Test
+    void subscriberWhoseWriteIsStuckShouldBeDropped() {
+        StockUpdateBroadcaster broadcaster = new StockUpdateBroadcaster(repo, ledger, Runnable::run);
+        ReflectionTestUtils.setField(broadcaster, "maxLagMs", 0L);
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.duringSend = () -> {
+            sleepQuietly(2);
+            broadcaster.onSweetChanged(stock(2L, 8));
+            broadcaster.flush();
+        };
+        broadcaster.subscribe(emitter);
+
+        broadcaster.onSweetChanged(stock(1L, 5));
+        broadcaster.flush();
+
+        assertEquals(0, broadcaster.subscriberCount());
+        assertEquals(1, emitter.events.size(), "the update that arrived during the stuck write is not sent");
+        assertTrue(emitter.completed);
+    }
+
+    @Test
+    void failedWriteShouldUnsubscribe() {
+        StockUpdateBroadcaster broadcaster = new StockUpdateBroadcaster(repo, ledger, Runnable::run);
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.fail = true;
+        broadcaster.subscribe(emitter);
+
+        broadcaster.onSweetChanged(stock(1L, 5));
+        broadcaster.flush();
+
+        assertEquals(0, broadcaster.subscriberCount());
+    }
+
+    private static SweetChangedEvent stock(Long id, int quantity) {
+        return new SweetChangedEvent(SweetChangedEvent.Type.STOCK, id, new SweetDto(id, "Ladoo", "Traditional", 5.0, quantity));
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<List<SweetUpdate>> events = new ArrayList<>();
+        boolean fail;
+        boolean completed;
+        Runnable duringSend;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void send(SseEventBuilder builder) throws IOException {
+            if (fail) {
+                throw new IOException("Broken pipe");
+            }
+            if (duringSend != null) {
+                Runnable hook = duringSend;
+                duringSend = null;
+                hook.run();
+            }
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build()) {
+                if (part.getData() instanceof List<?> list) {
+                    events.add((List<SweetUpdate>) list);
+                }
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed = true;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.sweetshop.service;
+
+import com.example.sweetshop.dto.SweetDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SweetSearchIndexTest {
+
+    private final SweetSearchIndex index = new SweetSearchIndex(null);
+
+    @BeforeEach
+    void setUp() {
+        index.rebuild(List.of(
+                new SweetDto(1L, "Ladoo", "Traditional", 50.0, 10),
+                new SweetDto(2L, "Besan Ladoo", "Traditional", 40.0, 5),
+                new SweetDto(3L, "Kaju Katli", "Dry Fruit", 120.0, 8)));
+    }
+
+    @Test
+    void nameSearchShouldMatchSubstringsIgnoringCase() {
+        assertEquals(List.of(1L, 2L), index.searchByName("LADOO"));
+        assertEquals(List.of(3L), index.searchByName("u ka"));
+        assertEquals(List.of(1L, 2L), index.searchByName("la"));
+        assertTrue(index.searchByName("barfi").isEmpty());
+    }
+
+    @Test
+    void categoryAndPriceSearchShouldUseTheirIndexes() {
+        assertEquals(List.of(1L, 2L), index.searchByCategory("traditional"));
+        assertEquals(List.of(1L, 2L), index.searchByPriceRange(40.0, 50.0));
+    }
+
+    @Test
+    void combinedSearchShouldApplyEveryCriterion() {
+        assertEquals(List.of(2L), index.search(new CatalogueQuery("ladoo", "Traditional", null, 45.0, null, null)));
+        assertEquals(List.of(3L), index.search(new CatalogueQuery(null, null, 100.0, null, null, null)));
+        assertTrue(index.search(new CatalogueQuery("katli", "traditional", null, null, null, null)).isEmpty());
+    }
+
+    @Test
+    void updatesShouldMoveSweetBetweenPostings() {
+        index.upsert(new SweetDto(2L, "Motichoor", "Festive", 60.0, 5));
+
+        assertEquals(List.of(1L), index.searchByName("ladoo"));
+        assertEquals(List.of(2L), index.searchByCategory("Festive"));
+        assertEquals(List.of(1L, 2L), index.searchByPriceRange(50.0, 60.0));
+
+        index.remove(1L);
+
+        assertTrue(index.searchByName("ladoo").isEmpty());
+    }
+}
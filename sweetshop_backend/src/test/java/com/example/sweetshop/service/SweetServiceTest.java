@@ -1,12 +1,29 @@
 package com.example.sweetshop.service;
 
+import com.example.sweetshop.dto.CheckoutItem;
+import com.example.sweetshop.dto.CheckoutLineResult;
+import com.example.sweetshop.dto.CheckoutResponse;
 import com.example.sweetshop.dto.SweetDto;
+import com.example.sweetshop.entity.StockMovement;
 import com.example.sweetshop.entity.Sweet;
+import com.example.sweetshop.exception.InsufficientStockException;
+import com.example.sweetshop.exception.SweetNotFoundException;
+import com.example.sweetshop.exception.SweetVersionMismatchException;
+import com.example.sweetshop.repository.StockMovementRepository;
 import com.example.sweetshop.repository.SweetRepository;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -15,9 +32,18 @@ import static org.mockito.Mockito.*;
 class SweetServiceTest {
 
     @Mock SweetRepository repo;
+    @Mock ApplicationEventPublisher events;
+    @Mock SweetSearchIndex index;
+    @Mock StockMovementRepository movements;
+    @Spy StockLedger ledger = new StockLedger();
+    @Mock TransactionTemplate transactionTemplate;
+    @Spy CatalogueCache cache = new CatalogueCache(100, 60_000);
     @InjectMocks SweetService service;
 
-    public SweetServiceTest() { MockitoAnnotations.openMocks(this); }
+    public SweetServiceTest() {
+        MockitoAnnotations.openMocks(this);
+        when(transactionTemplate.execute(any())).thenAnswer(i -> i.<TransactionCallback<?>>getArgument(0).doInTransaction(new SimpleTransactionStatus()));
+    }
 
     @Test
     void addSweetShouldSave() {
@@ -36,28 +62,105 @@ class SweetServiceTest {
     @Test
     void purchaseShouldDecreaseQuantity() {
         Sweet s = new Sweet();
-        s.setId(1L); s.setName("Barfi"); s.setQuantity(5);
-        when(repo.findById(1L)).thenReturn(Optional.of(s));
+        s.setId(1L); s.setName("Barfi"); s.setQuantity(3);
+        when(repo.decrementStock(1L, 2)).thenReturn(Optional.of(s));
 
         Sweet updated = service.purchase(1L, 2);
 
         assertEquals(3, updated.getQuantity());
+        verify(repo, never()).save(any(Sweet.class));
+        verify(movements).record(argThat(m -> m.size() == 1
+                && m.get(0).kind() == StockMovement.Kind.PURCHASE && m.get(0).delta() == -2));
+    }
+
+    @Test
+    void rejectedPurchaseShouldLeaveNoHistory() {
+        when(repo.decrementStock(7L, 1)).thenReturn(Optional.empty());
+        when(repo.findById(7L)).thenReturn(Optional.empty());
+
+        assertThrows(SweetNotFoundException.class, () -> service.purchase(7L, 1));
+        verifyNoInteractions(movements);
+    }
+
+    @Test
+    void ledgerPurchaseShouldQueueHistoryWithTheDelta() {
+        ReflectionTestUtils.setField(service, "purchaseMode", PurchaseMode.LEDGER);
+        ledger.put(1L, 5);
+        Sweet s = new Sweet();
+        s.setId(1L); s.setName("Barfi"); s.setQuantity(5);
+        when(repo.findById(1L)).thenReturn(Optional.of(s));
+
+        assertEquals(3, service.purchase(1L, 2).getQuantity());
+        assertEquals("Barfi", service.purchase(1L, 1).getName());
+
+        verify(repo, times(1)).findById(1L);
+        verifyNoInteractions(movements, transactionTemplate);
+        assertEquals(Map.of(1L, -3), ledger.drainPending());
+        List<StockMovement> queued = ledger.drainMovements();
+        assertEquals(2, queued.size());
+        assertEquals(StockMovement.Kind.PURCHASE, queued.get(0).kind());
     }
 
     @Test
     void purchaseShouldFailWhenNotEnoughStock() {
         Sweet s = new Sweet();
         s.setId(1L); s.setQuantity(1);
+        when(repo.decrementStock(1L, 5)).thenReturn(Optional.empty());
         when(repo.findById(1L)).thenReturn(Optional.of(s));
 
-        assertThrows(IllegalArgumentException.class, () -> service.purchase(1L, 5));
+        assertThrows(InsufficientStockException.class, () -> service.purchase(1L, 5));
+    }
+
+    @Test
+    void purchaseShouldFailWhenSweetMissing() {
+        when(repo.decrementStock(7L, 1)).thenReturn(Optional.empty());
+        when(repo.findById(7L)).thenReturn(Optional.empty());
+
+        assertThrows(SweetNotFoundException.class, () -> service.purchase(7L, 1));
+    }
+
+    @Test
+    void checkoutShouldMergeLinesAndTakeThemInIdOrder() {
+        Sweet first = new Sweet();
+        first.setId(1L); first.setName("Ladoo"); first.setQuantity(3);
+        Sweet second = new Sweet();
+        second.setId(2L); second.setName("Barfi"); second.setQuantity(0);
+        when(repo.decrementStockBatch(any())).thenReturn(new int[]{1, 1});
+        when(repo.findAllById(any())).thenReturn(List.of(second, first));
+
+        CheckoutResponse resp = service.checkout(List.of(
+                new CheckoutItem(2L, 1), new CheckoutItem(1L, 2), new CheckoutItem(2L, 1)));
+
+        verify(repo).decrementStockBatch(argThat(lines ->
+                lines.firstKey() == 1L && lines.get(1L) == 2 && lines.get(2L) == 2));
+        assertTrue(resp.isCompleted());
+        assertEquals(2, resp.getLines().size());
+        assertEquals(CheckoutLineResult.Status.PURCHASED, resp.getLines().get(0).getStatus());
+        assertEquals(0, resp.getLines().get(1).getRemaining());
+        verify(movements).record(argThat(m -> m.size() == 2
+                && m.get(0).sweetId() == 1L && m.get(0).delta() == -2
+                && m.get(1).sweetId() == 2L && m.get(1).delta() == -2));
+    }
+
+    @Test
+    void ledgerCheckoutShouldStayOutOfTheDatabase() {
+        ReflectionTestUtils.setField(service, "purchaseMode", PurchaseMode.LEDGER);
+        ledger.put(1L, 5);
+        ledger.put(2L, 1);
+
+        CheckoutResponse resp = service.checkout(List.of(new CheckoutItem(1L, 2), new CheckoutItem(2L, 3)));
+
+        assertFalse(resp.isCompleted());
+        assertEquals(5, ledger.available(1L));
+        verifyNoInteractions(transactionTemplate, movements);
+        verify(repo, never()).decrementStockBatch(any());
     }
 
     @Test
     void searchByNameShouldReturnMatches() {
         Sweet s = new Sweet();
         s.setId(1L); s.setName("Ladoo"); s.setCategory("Traditional");
-        when(repo.findByNameContainingIgnoreCase("lad")).thenReturn(List.of(s));
+        when(repo.findBy(ArgumentMatchers.<Specification<Sweet>>any(), any())).thenReturn(List.of(s));
 
         List<Sweet> results = service.searchByName("lad");
 
@@ -65,18 +168,128 @@ class SweetServiceTest {
         assertEquals("Ladoo", results.get(0).getName());
     }
 
+    @Test
+    void searchByNameShouldUseIndexWhenActive() {
+        Sweet s = new Sweet();
+        s.setId(4L); s.setName("Kaju Katli"); s.setCategory("Dry Fruit");
+        when(index.isActive()).thenReturn(true);
+        when(index.search(CatalogueQuery.byName("katli"))).thenReturn(List.of(4L));
+        when(repo.findBy(ArgumentMatchers.<Specification<Sweet>>any(), any())).thenReturn(List.of(s));
+
+        List<Sweet> results = service.searchByName("katli");
+
+        assertEquals("Kaju Katli", results.get(0).getName());
+        verify(index).search(CatalogueQuery.byName("katli"));
+    }
+
+    @Test
+    void searchShouldSkipDatabaseWhenIndexHasNoMatches() {
+        when(index.isActive()).thenReturn(true);
+        when(index.search(any())).thenReturn(List.of());
+
+        List<Sweet> results = service.search(new CatalogueQuery("katli", "dry fruit", 10.0, 20.0, null, 5));
+
+        assertTrue(results.isEmpty());
+        verify(repo, never()).findBy(ArgumentMatchers.<Specification<Sweet>>any(), any());
+    }
+
+    @Test
+    void fulltextBackendShouldRankNameSearchesWithDefaultLimit() {
+        ReflectionTestUtils.setField(service, "searchBackend", SearchBackend.FULLTEXT);
+        Sweet s = new Sweet();
+        s.setId(4L); s.setName("Kaju Katli");
+        when(repo.searchRanked("katli", null, null, null, 200)).thenReturn(List.of(s));
+
+        List<Sweet> results = service.searchByName("Katli");
+        service.searchByName("Katli");
+
+        assertEquals("Kaju Katli", results.get(0).getName());
+        verify(repo, times(2)).searchRanked("katli", null, null, null, 200);
+        verify(repo, never()).findBy(ArgumentMatchers.<Specification<Sweet>>any(), any());
+    }
+
+    @Test
+    void searchShouldRejectUnknownSortProperty() {
+        CatalogueQuery query = CatalogueQuery.all().withSort(Sort.by("password"));
+
+        assertThrows(IllegalArgumentException.class, () -> service.search(query));
+    }
+
     @Test
     void updateSweetShouldChangeValues() {
         Sweet existing = new Sweet();
         existing.setId(1L); existing.setName("Ladoo"); existing.setQuantity(10);
         when(repo.findById(1L)).thenReturn(Optional.of(existing));
-        when(repo.save(any(Sweet.class))).thenAnswer(i -> i.getArgument(0));
+        when(repo.saveAndFlush(any(Sweet.class))).thenAnswer(i -> i.getArgument(0));
 
         SweetDto dto = new SweetDto(1L,"Barfi","Milk",30.0,20);
         Sweet updated = service.updateSweet(1L, dto);
 
         assertEquals("Barfi", updated.getName());
         assertEquals(20, updated.getQuantity());
+        verify(movements).record(argThat(m -> m.get(0).kind() == StockMovement.Kind.ADJUSTMENT && m.get(0).delta() == 10));
+    }
+
+    @Test
+    void updateWithStaleVersionShouldFailWithoutWriting() {
+        Sweet existing = new Sweet();
+        existing.setId(1L); existing.setName("Ladoo"); existing.setQuantity(10); existing.setVersion(4L);
+        when(repo.findById(1L)).thenReturn(Optional.of(existing));
+
+        assertThrows(SweetVersionMismatchException.class,
+                () -> service.updateSweet(1L, new SweetDto(1L, "Barfi", "Milk", 30.0, 20), 3L));
+        verify(repo, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void updateShouldRetryOnConcurrentChangeAndGiveUpEventually() {
+        Sweet existing = new Sweet();
+        existing.setId(1L); existing.setName("Ladoo"); existing.setQuantity(10); existing.setVersion(4L);
+        when(repo.findById(1L)).thenReturn(Optional.of(existing));
+        when(repo.saveAndFlush(any(Sweet.class)))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Sweet.class, 1L))
+                .thenAnswer(i -> i.getArgument(0));
+
+        assertEquals("Barfi", service.updateSweet(1L, new SweetDto(1L, "Barfi", null, null, 10)).getName());
+        verify(repo, times(2)).saveAndFlush(any());
+
+        reset(repo);
+        when(repo.findById(1L)).thenReturn(Optional.of(existing));
+        when(repo.saveAndFlush(any(Sweet.class))).thenThrow(new ObjectOptimisticLockingFailureException(Sweet.class, 1L));
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+                () -> service.updateSweet(1L, new SweetDto(1L, "Barfi", null, null, 10)));
+        verify(repo, times(3)).saveAndFlush(any());
+    }
+
+    @Test
+    void conflictOnConditionalUpdateShouldNotBeRetried() {
+        Sweet existing = new Sweet();
+        existing.setId(1L); existing.setName("Ladoo"); existing.setVersion(4L);
+        when(repo.findById(1L)).thenReturn(Optional.of(existing));
+        when(repo.saveAndFlush(any(Sweet.class))).thenThrow(new ObjectOptimisticLockingFailureException(Sweet.class, 1L));
+
+        assertThrows(SweetVersionMismatchException.class,
+                () -> service.patchSweet(1L, new SweetDto(null, null, null, 12.0, null), 4L));
+        verify(repo, times(1)).saveAndFlush(any());
+    }
+
+    @Test
+    void unconditionalPatchShouldBeOneTargetedUpdate() {
+        Sweet updated = new Sweet();
+        updated.setId(1L); updated.setName("Ladoo"); updated.setCategory("Traditional"); updated.setPrice(12.0);
+        updated.setQuantity(10);
+        when(repo.patchDetails(1L, null, null, 12.0)).thenReturn(Optional.of(updated));
+
+        Sweet patched = service.patchSweet(1L, new SweetDto(null, null, null, 12.0, null), null);
+
+        assertEquals("Ladoo", patched.getName());
+        assertEquals(12.0, patched.getPrice());
+        assertEquals(10, patched.getQuantity());
+        verify(repo, never()).findById(any());
+        verify(repo, never()).saveAndFlush(any());
+        verifyNoInteractions(movements);
+        assertThrows(IllegalArgumentException.class,
+                () -> service.patchSweet(1L, new SweetDto(null, null, null, null, 3), null));
     }
 
     @Test
@@ -88,8 +301,8 @@ class SweetServiceTest {
     @Test
     void restockShouldIncreaseQuantity() {
         Sweet s = new Sweet();
-        s.setId(1L); s.setQuantity(5);
-        when(repo.findById(1L)).thenReturn(Optional.of(s));
+        s.setId(1L); s.setQuantity(15);
+        when(repo.incrementStock(1L, 10)).thenReturn(Optional.of(s));
 
         Sweet updated = service.restock(1L, 10);
 